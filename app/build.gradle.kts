@@ -64,6 +64,11 @@ android {
         disable += "MissingTranslation"
     }
 
+    testOptions {
+        // android.util.Log is called throughout the emulator code
+        unitTests.isReturnDefaultValues = true
+    }
+
     flavorDimensions += "default"
     productFlavors {
         create("emulator") { // variant dimension for create emulator
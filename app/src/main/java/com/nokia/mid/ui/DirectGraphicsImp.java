@@ -30,6 +30,9 @@ package com.nokia.mid.ui;
 
 import android.graphics.Bitmap;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import javax.microedition.lcdui.Graphics;
 import javax.microedition.lcdui.Image;
 import javax.microedition.lcdui.game.Sprite;
@@ -48,6 +51,18 @@ public class DirectGraphicsImp implements DirectGraphics {
 			{Sprite.TRANS_ROT180       , Sprite.TRANS_ROT90        , Sprite.TRANS_NONE         , Sprite.TRANS_ROT270       }, // flip both
 	};
 
+	/** Bitmaps for transformed drawPixels calls, by size */
+	private static final int MAX_CACHED_BITMAPS = 4;
+	private static final LinkedHashMap<Integer, Image> bitmapCache =
+			new LinkedHashMap<Integer, Image>(8, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+					return size() > MAX_CACHED_BITMAPS;
+				}
+			};
+	/** Converted pixels, reused by all instances and guarded by bitmapCache */
+	private static int[] colors = new int[0];
+
 	private int alphaComponent;
 
 	public DirectGraphicsImp(Graphics g) {
@@ -57,7 +72,7 @@ public class DirectGraphicsImp implements DirectGraphics {
 	private static int getPixel(byte[] pixels, byte[] alpha, int idx, int shift) {
 		int p = (pixels[idx] >> shift & 1 ^ 1) * 0x00FFFFFF;
 		if (alpha == null) {
-			return p;
+			return 0xFF000000 | p;
 		}
 		return (alpha[idx] >> shift & 1) * 0xFF000000 | p;
 	}
@@ -128,43 +143,42 @@ public class DirectGraphicsImp implements DirectGraphics {
 		}
 
 		int transform = getTransformation(manipulation);
-		int[] colors = new int[height * width];
-
-		switch (format) {
-			case TYPE_BYTE_1_GRAY: {
-				int space = scanlength - width;
-				for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
-					for (int xi = 0; xi < width; xi++, offset++) {
-						int shift = 7 - (offset & 7);
-						colors[di++] = getPixel(pixels, transparencyMask, offset >> 3, shift);
+		synchronized (bitmapCache) {
+			int[] colors = getColors(height * width);
+			switch (format) {
+				case TYPE_BYTE_1_GRAY: {
+					int space = scanlength - width;
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++, offset++) {
+							int shift = 7 - (offset & 7);
+							colors[di++] = getPixel(pixels, transparencyMask, offset >> 3, shift);
+						}
 					}
+					break;
 				}
-				break;
-			}
-			case TYPE_BYTE_1_GRAY_VERTICAL: {
-				int ods = offset / scanlength;
-				int oms = offset % scanlength;
-				int shift = ods & 7;
-				for (int yi = 0, di = 0; yi < height; yi++) {
-					int idx = ((ods + yi) >> 3) * scanlength + oms;
-					for (int xi = 0; xi < width; xi++) {
-						colors[di++] = getPixel(pixels, transparencyMask, idx++, shift);
+				case TYPE_BYTE_1_GRAY_VERTICAL: {
+					int ods = offset / scanlength;
+					int oms = offset % scanlength;
+					int shift = ods & 7;
+					for (int yi = 0, di = 0; yi < height; yi++) {
+						int idx = ((ods + yi) >> 3) * scanlength + oms;
+						for (int xi = 0; xi < width; xi++) {
+							colors[di++] = getPixel(pixels, transparencyMask, idx++, shift);
+						}
+						shift = (shift + 1) & 7;
 					}
-					shift = (shift + 1) & 7;
+					break;
 				}
-				break;
+				case TYPE_BYTE_2_GRAY:
+				case TYPE_BYTE_4_GRAY:
+				case TYPE_BYTE_8_GRAY:
+				case TYPE_BYTE_332_RGB:
+					throw new IllegalArgumentException("Illegal format: " + format);
+				default:
+					throw new IllegalArgumentException("Unsupported format: " + format);
 			}
-			case TYPE_BYTE_2_GRAY:
-			case TYPE_BYTE_4_GRAY:
-			case TYPE_BYTE_8_GRAY:
-			case TYPE_BYTE_332_RGB:
-				throw new IllegalArgumentException("Illegal format: " + format);
-			default:
-				throw new IllegalArgumentException("Unsupported format: " + format);
+			drawColors(colors, width, height, transform, x, y);
 		}
-
-		Image image = Image.createRGBImage(colors, width, height, transparencyMask != null);
-		graphics.drawRegion(image, 0, 0, width, height, transform, x, y, 0);
 	}
 
 	@Override
@@ -191,16 +205,23 @@ public class DirectGraphicsImp implements DirectGraphics {
 		}
 
 		int transform = getTransformation(manipulation);
-		int[] colors = new int[height * width];
-
-		int space = scanlength - width;
-		for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
-			for (int xi = 0; xi < width; xi++) {
-				colors[di++] = pixels[offset++];
+		boolean alpha = format != TYPE_INT_888_RGB && transparency;
+		if (transform == Sprite.TRANS_NONE) {
+			// pixels are drawn right from the source array
+			graphics.drawRGB(pixels, offset, scanlength, x, y, width, height, alpha);
+			return;
+		}
+		synchronized (bitmapCache) {
+			int[] colors = getColors(height * width);
+			int opaque = alpha ? 0 : 0xFF000000;
+			int space = scanlength - width;
+			for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+				for (int xi = 0; xi < width; xi++) {
+					colors[di++] = opaque | pixels[offset++];
+				}
 			}
+			drawColors(colors, width, height, transform, x, y);
 		}
-		Image image = Image.createRGBImage(colors, width, height, format != TYPE_INT_888_RGB && transparency);
-		graphics.drawRegion(image, 0, 0, width, height, transform, x, y, 0);
 	}
 
 	@Override
@@ -225,56 +246,76 @@ public class DirectGraphicsImp implements DirectGraphics {
 		}
 
 		int transform = getTransformation(manipulation);
-		int[] colors = new int[height * width];
-
-		switch (format) {
-			case TYPE_USHORT_4444_ARGB: {
-				int space = scanlength - width;
-				for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
-					for (int xi = 0; xi < width; xi++) {
-						short s = pixels[offset++];
-						int a = (s & 0xF000) << 12;
-						int r = (s & 0x0F00) << 8;
-						int g = (s & 0x00F0) << 4;
-						int b = (s & 0x000F);
-						int argb = a | r | g | b;
-						colors[di++] = argb | argb << 4;
+		synchronized (bitmapCache) {
+			int[] colors = getColors(height * width);
+			int space = scanlength - width;
+			switch (format) {
+				case TYPE_USHORT_4444_ARGB: {
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++) {
+							short s = pixels[offset++];
+							int a = (s & 0xF000) << 12;
+							int r = (s & 0x0F00) << 8;
+							int g = (s & 0x00F0) << 4;
+							int b = (s & 0x000F);
+							int argb = a | r | g | b;
+							colors[di++] = argb | argb << 4;
+						}
 					}
+					break;
 				}
-				break;
-			}
-			case TYPE_USHORT_444_RGB: {
-				int space = scanlength - width;
-				for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
-					for (int xi = 0; xi < width; xi++) {
-						short s = pixels[offset++];
-						int rgb = (s & 0x0F00) << 8 | (s & 0x00F0) << 4 | (s & 0x000F);
-						colors[di++] = 0xFF000000 | rgb | rgb << 4;
+				case TYPE_USHORT_444_RGB: {
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++) {
+							short s = pixels[offset++];
+							int rgb = (s & 0x0F00) << 8 | (s & 0x00F0) << 4 | (s & 0x000F);
+							colors[di++] = 0xFF000000 | rgb | rgb << 4;
+						}
 					}
+					break;
 				}
-				break;
-			}
-			case TYPE_USHORT_565_RGB: {
-				int space = scanlength - width;
-				for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
-					for (int xi = 0; xi < width; xi++) {
-						short s = pixels[offset++];
-						int r = (s & 0xF800) << 8 | (s & 0xE000) << 3;
-						int g = (s & 0x07E0) << 5 | (s & 0x0600) >> 1;
-						int b = (s & 0x001F) << 3 | (s & 0x001C) >> 2;
-						colors[di++] = 0xFF000000 | r | g | b;
+				case TYPE_USHORT_565_RGB: {
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++) {
+							short s = pixels[offset++];
+							int r = (s & 0xF800) << 8 | (s & 0xE000) << 3;
+							int g = (s & 0x07E0) << 5 | (s & 0x0600) >> 1;
+							int b = (s & 0x001F) << 3 | (s & 0x001C) >> 2;
+							colors[di++] = 0xFF000000 | r | g | b;
+						}
 					}
+					break;
 				}
-				break;
+				case TYPE_USHORT_555_RGB: {
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++) {
+							short s = pixels[offset++];
+							int r = (s & 0x7C00) << 9 | (s & 0x7000) << 4;
+							int g = (s & 0x03E0) << 6 | (s & 0x0380) << 1;
+							int b = (s & 0x001F) << 3 | (s & 0x001C) >> 2;
+							colors[di++] = 0xFF000000 | r | g | b;
+						}
+					}
+					break;
+				}
+				case TYPE_USHORT_1555_ARGB: {
+					for (int yi = 0, di = 0; yi < height; yi++, offset += space) {
+						for (int xi = 0; xi < width; xi++) {
+							short s = pixels[offset++];
+							int a = -(s >> 15 & 1) << 24;
+							int r = (s & 0x7C00) << 9 | (s & 0x7000) << 4;
+							int g = (s & 0x03E0) << 6 | (s & 0x0380) << 1;
+							int b = (s & 0x001F) << 3 | (s & 0x001C) >> 2;
+							colors[di++] = a | r | g | b;
+						}
+					}
+					break;
+				}
+				default:
+					throw new IllegalArgumentException("Illegal format: " + format);
 			}
-			case TYPE_USHORT_555_RGB:
-			case TYPE_USHORT_1555_ARGB:
-				throw new IllegalArgumentException("Unsupported format: " + format);
-			default:
-				throw new IllegalArgumentException("Illegal format: " + format);
+			drawColors(colors, width, height, transform, x, y);
 		}
-		Image image = Image.createRGBImage(colors, width, height, true);
-		graphics.drawRegion(image, 0, 0, width, height, transform, x, y, 0);
 	}
 
 	@Override
@@ -478,14 +519,66 @@ public class DirectGraphicsImp implements DirectGraphics {
 				}
 				break;
 			}
-			case TYPE_USHORT_555_RGB:
-			case TYPE_USHORT_1555_ARGB:
-				throw new IllegalArgumentException("Unsupported format: " + format);
+			case TYPE_USHORT_555_RGB: {
+				int space = scanlength - width;
+				for (int yi = 0, si = 0; yi < height; yi++, offset += space) {
+					for (int xi = 0; xi < width; xi++, si++) {
+						int r = colors[si] >> 9 & 0x7C00;
+						int g = colors[si] >> 6 & 0x03E0;
+						int b = colors[si] >> 3 & 0x001F;
+						pixels[offset++] = (short) (r | g | b);
+					}
+				}
+				break;
+			}
+			case TYPE_USHORT_1555_ARGB: {
+				int space = scanlength - width;
+				for (int yi = 0, si = 0; yi < height; yi++, offset += space) {
+					for (int xi = 0; xi < width; xi++, si++) {
+						int a = colors[si] >>> 16 & 0x8000;
+						int r = colors[si] >> 9 & 0x7C00;
+						int g = colors[si] >> 6 & 0x03E0;
+						int b = colors[si] >> 3 & 0x001F;
+						pixels[offset++] = (short) (a | r | g | b);
+					}
+				}
+				break;
+			}
 			default:
 				throw new IllegalArgumentException("Illegal format: " + format);
 		}
 	}
 
+	/** @return shared array for converted pixels, must be used with bitmapCache lock held */
+	private static int[] getColors(int size) {
+		int[] colors = DirectGraphicsImp.colors;
+		if (colors.length < size) {
+			colors = new int[size];
+			DirectGraphicsImp.colors = colors;
+		}
+		return colors;
+	}
+
+	/**
+	 * Draws converted pixels, without transform they are drawn right from the array,
+	 * otherwise they are written to a cached bitmap of the same size.
+	 * Must be called with bitmapCache lock held.
+	 */
+	private void drawColors(int[] colors, int width, int height, int transform, int x, int y) {
+		if (transform == Sprite.TRANS_NONE) {
+			graphics.drawRGB(colors, 0, width, x, y, width, height, true);
+			return;
+		}
+		Integer key = width << 16 | height;
+		Image image = bitmapCache.get(key);
+		if (image == null) {
+			image = new Image(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+			bitmapCache.put(key, image);
+		}
+		image.getBitmap().setPixels(colors, 0, width, 0, 0, width, height);
+		graphics.drawRegion(image, 0, 0, width, height, transform, x, y, 0);
+	}
+
 	@Override
 	public void setARGBColor(int argb) {
 		alphaComponent = (argb >> 24 & 0xff);
@@ -501,9 +594,6 @@ public class DirectGraphicsImp implements DirectGraphics {
 						   int height) {
 		x += graphics.getTranslateX();
 		y += graphics.getTranslateY();
-		Bitmap image = graphics.getBitmap();
-		int w = Math.min(width, image.getWidth() - x);
-		int h = Math.min(height, image.getHeight() - y);
-		image.getPixels(pixels, offset, stride, x, y, w, h);
+		graphics.getPixels(pixels, offset, stride, x, y, width, height);
 	}
 }
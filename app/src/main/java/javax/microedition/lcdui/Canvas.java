@@ -55,6 +55,7 @@ import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -73,6 +74,7 @@ import javax.microedition.lcdui.overlay.Layer;
 import javax.microedition.lcdui.overlay.Overlay;
 import javax.microedition.lcdui.overlay.OverlayView;
 import javax.microedition.lcdui.skin.SkinLayer;
+import javax.microedition.shell.LaunchTrace;
 import javax.microedition.shell.MicroActivity;
 import javax.microedition.util.ContextHolder;
 
@@ -121,8 +123,8 @@ public abstract class Canvas extends Displayable {
 
 	private static ProfileModel settings;
 	private static boolean parallelRedraw;
-	private static int fpsLimit;
 	private static boolean screenshotRawMode;
+	private static final FramePacer framePacer = new FramePacer();
 
 	private final Object bufferLock = new Object();
 	private final Object surfaceLock = new Object();
@@ -143,9 +145,13 @@ public abstract class Canvas extends Displayable {
 	private boolean visible;
 	private boolean sizeChangedCalled;
 	private Image offscreen;
-	private Image offscreenCopy;
+	/** Frames for presentation, its MIDlet side is guarded by bufferLock */
+	private volatile SwapChain swapChain;
+	/** Area of offscreen drawn since last frame publishing, guarded by bufferLock */
+	private final Rect offscreenDirty = new Rect();
+	/** Area of the frame changed by flushBuffer, guarded by bufferLock */
+	private final Rect flushDirty = new Rect();
 	private int onX, onY, onWidth, onHeight;
-	private long lastFrameTime = System.currentTimeMillis();
 	private Handler uiHandler;
 	private Overlay overlay;
 	private FpsCounter fpsCounter;
@@ -171,7 +177,7 @@ public abstract class Canvas extends Displayable {
 	}
 
 	public static void setLimitFps(int fpsLimit) {
-		Canvas.fpsLimit = fpsLimit == -1 ? settings.fpsLimit : fpsLimit;
+		framePacer.setFps(fpsLimit == -1 ? settings.fpsLimit : fpsLimit);
 	}
 
 	public static void setScreenshotRawMode(boolean enable) {
@@ -180,7 +186,8 @@ public abstract class Canvas extends Displayable {
 
 	public static void setSettings(ProfileModel settings) {
 		Canvas.settings = settings;
-		fpsLimit = settings.fpsLimit;
+		framePacer.setMode(settings.framePacing);
+		framePacer.setFps(settings.fpsLimit);
 		int mode = settings.graphicsMode;
 		parallelRedraw = (mode == 0 || mode == 3) && settings.parallelRedrawScreen;
 	}
@@ -262,10 +269,9 @@ public abstract class Canvas extends Displayable {
 		SkinLayer skinLayer = SkinLayer.getInstance();
 		int p = skinLayer != null && skinLayer.hasDisplayFrame() ? 0 : settings.screenPadding;
 		canvas.clipRect(p, p, displayWidth - p, displayHeight - p);
-		synchronized (bufferLock) {
-			offscreenCopy.getBitmap().prepareToDraw();
-			g.drawImage(offscreenCopy, virtualScreen);
-		}
+		Image frame = swapChain.acquire();
+		frame.getBitmap().prepareToDraw();
+		g.drawImage(frame, virtualScreen);
 		if (fpsCounter != null) {
 			fpsCounter.increment();
 		}
@@ -279,14 +285,15 @@ public abstract class Canvas extends Displayable {
 			Bitmap bitmap;
 			if (screenshotRawMode) {
 				synchronized (bufferLock) {
-					bitmap = Bitmap.createBitmap(offscreenCopy.getBitmap(), 0, 0,
-							offscreenCopy.getWidth(), offscreenCopy.getHeight());
+					Image frame = swapChain.getPublished();
+					bitmap = Bitmap.createBitmap(frame.getBitmap(), 0, 0,
+							frame.getWidth(), frame.getHeight());
 				}
 			} else {
 				bitmap = Bitmap.createBitmap(onWidth, onHeight, Bitmap.Config.ARGB_8888);
 				canvasWrapper.bind(new android.graphics.Canvas(bitmap));
 				synchronized (bufferLock) {
-					canvasWrapper.drawImage(offscreenCopy, new RectF(0, 0, onWidth, onHeight));
+					canvasWrapper.drawImage(swapChain.getPublished(), new RectF(0, 0, onWidth, onHeight));
 				}
 			}
 			emitter.onSuccess(bitmap);
@@ -439,11 +446,11 @@ public abstract class Canvas extends Displayable {
 		synchronized (bufferLock) {
 			if (offscreen == null) {
 				offscreen = Image.createImage(width, maxHeight);
-				offscreenCopy = Image.createImage(width, maxHeight);
+				swapChain = new SwapChain(width, maxHeight);
 			}
 			if (offscreen.getWidth() != width || offscreen.getHeight() != height) {
 				offscreen.setSize(width, height);
-				offscreenCopy.setSize(width, height);
+				swapChain.setSize(width, height);
 			}
 		}
 		if (overlay != null) {
@@ -569,7 +576,7 @@ public abstract class Canvas extends Displayable {
 	}
 
 	public final void repaint(int x, int y, int width, int height) {
-		limitFps();
+		framePacer.await();
 		boolean post;
 		synchronized (paintEvent.clip) {
 			post = paintEvent.invalidateClip(this, x, y, x + width, y + height) && !paintEvent.isPending;
@@ -591,7 +598,7 @@ public abstract class Canvas extends Displayable {
 
 	// GameCanvas
 	protected void flushBuffer(Image image, int x, int y, int width, int height) {
-		limitFps();
+		framePacer.await();
 		if (width <= 0 || height <= 0 ||
 				x + width < 0 || y + height < 0 ||
 				x >= this.width || y >= this.height) {
@@ -600,33 +607,27 @@ public abstract class Canvas extends Displayable {
 		synchronized (bufferLock) {
 			if (Thread.holdsLock(paintEvent)) {
 				offscreen.getSingleGraphics().flush(image, x, y, width, height);
+				offscreenDirty.union(x, y, x + width, y + height);
 				return;
 			}
-			offscreenCopy.getSingleGraphics().flush(image, x, y, width, height);
+			swapChain.beginFrame().getSingleGraphics().flush(image, x, y, width, height);
+			flushDirty.set(x, y, x + width, y + height);
+			swapChain.publish(flushDirty);
 		}
 		requestFlushToScreen();
 	}
 
 	// ExtendedImage
 	public void flushBuffer(Image image, int x, int y) {
-		limitFps();
+		framePacer.await();
 		synchronized (bufferLock) {
-			image.copyTo(offscreenCopy, x, y);
+			image.copyTo(swapChain.beginFrame(), x, y);
+			flushDirty.set(x, y, x + image.getWidth(), y + image.getHeight());
+			swapChain.publish(flushDirty);
 		}
 		requestFlushToScreen();
 	}
 
-	private void limitFps() {
-		if (fpsLimit <= 0) return;
-		try {
-			long millis = (1000 / fpsLimit) - (System.currentTimeMillis() - lastFrameTime);
-			if (millis > 0) Thread.sleep(millis);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		lastFrameTime = System.currentTimeMillis();
-	}
-
 	@SuppressLint("NewApi")
 	private boolean repaintScreen() {
 		Surface surface = this.surface;
@@ -646,9 +647,7 @@ public abstract class Canvas extends Displayable {
 				SkinLayer skinLayer = SkinLayer.getInstance();
 				int p = skinLayer != null && skinLayer.hasDisplayFrame() ? 0 : settings.screenPadding;
 				canvas.clipRect(p, p, displayWidth - p, displayHeight - p);
-				synchronized (bufferLock) {
-					g.drawImage(offscreenCopy, virtualScreen);
-				}
+				g.drawImage(swapChain.acquire(), virtualScreen);
 				surface.unlockCanvasAndPost(canvas);
 			}
 			if (fpsCounter != null) {
@@ -739,6 +738,14 @@ public abstract class Canvas extends Displayable {
 		private final int[] bgTextureId = new int[1];
 		private ShaderProgram program;
 		private boolean isStarted;
+		/** Size the texture storage was allocated for, zero if not allocated */
+		private int texWidth;
+		private int texHeight;
+		/** Number of the frame in the texture */
+		private long texFrame;
+		private final Rect uploadRect = new Rect();
+		private int[] uploadPixels = new int[0];
+		private IntBuffer uploadBuffer;
 
 		@Override
 		public void onSurfaceCreated(GL10 gl, EGLConfig config) {
@@ -749,7 +756,8 @@ public abstract class Canvas extends Displayable {
 			glDisable(GL_DEPTH_TEST);
 			glDepthMask(false);
 			initTex();
-			Bitmap bitmap = offscreenCopy.getBitmap();
+			texWidth = 0;
+			Bitmap bitmap = offscreen.getBitmap();
 			program.loadVbo(vbo, bitmap.getWidth(), bitmap.getHeight());
 			if (settings.shader != null && settings.shader.values != null && program.uSetting >= 0) {
 				glUniform4fv(program.uSetting, 1, settings.shader.values, 0);
@@ -773,13 +781,75 @@ public abstract class Canvas extends Displayable {
 			glDisable(GL_SCISSOR_TEST);
 			glClear(GL_COLOR_BUFFER_BIT);
 			glEnable(GL_SCISSOR_TEST);
-			synchronized (bufferLock) {
-				GLUtils.texImage2D(GL_TEXTURE_2D, 0, offscreenCopy.getBitmap(), 0);
-			}
+			int uploaded = uploadTexture();
 			glDrawArrays(GL_TRIANGLE_STRIP, 0, 4);
 			if (fpsCounter != null) {
 				fpsCounter.increment();
+				fpsCounter.addUploadBytes(uploaded);
+			}
+		}
+
+		/**
+		 * Updates the texture with the latest frame,
+		 * only the changed area is uploaded if the texture has the previous frame.
+		 * That area includes everything paint() could draw to, see {@link Graphics#getTouched()}.
+		 *
+		 * @return number of uploaded bytes
+		 */
+		private int uploadTexture() {
+			SwapChain chain = swapChain;
+			Bitmap bitmap = chain.acquire().getBitmap();
+			long frame = chain.getFrontFrame();
+			long previous = texFrame;
+			texFrame = frame;
+			int bw = bitmap.getWidth();
+			int bh = bitmap.getHeight();
+			if (bw != texWidth || bh != texHeight) {
+				// texture storage is allocated only once per size
+				GLUtils.texImage2D(GL_TEXTURE_2D, 0, bitmap, 0);
+				texWidth = bw;
+				texHeight = bh;
+				return bw * bh * 4;
+			}
+			if (frame == previous) {
+				return 0;
+			}
+			Rect r = uploadRect;
+			if (frame == previous + 1) {
+				r.set(chain.getFrontDirty());
+			} else {
+				// some frames were not presented, their changes are unknown here
+				r.set(0, 0, bw, bh);
+			}
+			if (!r.intersect(0, 0, bw, bh)) {
+				return 0;
+			}
+			int w = r.width();
+			int h = r.height();
+			if (w * h * 2 > bw * bh) {
+				// a large area is cheaper to upload at once by the native code
+				GLUtils.texSubImage2D(GL_TEXTURE_2D, 0, 0, 0, bitmap);
+				return bw * bh * 4;
+			}
+			int size = w * h;
+			if (uploadPixels.length < size) {
+				uploadPixels = new int[size];
+				uploadBuffer = ByteBuffer.allocateDirect(size * 4)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			}
+			int[] pixels = uploadPixels;
+			bitmap.getPixels(pixels, 0, w, r.left, r.top, w, h);
+			// ARGB to RGBA bytes
+			for (int i = 0; i < size; i++) {
+				int p = pixels[i];
+				pixels[i] = p & 0xff00ff00 | (p & 0xff) << 16 | p >> 16 & 0xff;
 			}
+			IntBuffer buffer = uploadBuffer;
+			buffer.clear();
+			buffer.put(pixels, 0, size);
+			buffer.rewind();
+			glTexSubImage2D(GL_TEXTURE_2D, 0, r.left, r.top, w, h, GL_RGBA, GL_UNSIGNED_BYTE, buffer);
+			return size * 4;
 		}
 
 		private void initTex() {
@@ -804,7 +874,7 @@ public abstract class Canvas extends Displayable {
 			}
 			if (isStarted) {
 				mView.queueEvent(() -> {
-					Bitmap bitmap = offscreenCopy.getBitmap();
+					Bitmap bitmap = offscreen.getBitmap();
 					synchronized (vbo) {
 						program.loadVbo(vbo, bitmap.getWidth(), bitmap.getHeight());
 					}
@@ -864,7 +934,8 @@ public abstract class Canvas extends Displayable {
 
 		boolean isPending;
 
-		private int enqueued = 0;
+		/** Changed by the posting threads and the event thread */
+		private final AtomicInteger enqueued = new AtomicInteger();
 
 		@Override
 		public synchronized void process() {
@@ -890,8 +961,13 @@ public abstract class Canvas extends Displayable {
 			} catch (Throwable e) {
 				Log.e(TAG, "Error in paint()", e);
 			}
+			LaunchTrace.firstPaint();
 			synchronized (bufferLock) {
-				offscreen.copyTo(offscreenCopy);
+				// paint() may have set a clip wider than the requested one
+				offscreenDirty.union(g.getTouched());
+				offscreen.copyTo(swapChain.beginFrame(), offscreenDirty);
+				swapChain.publish(offscreenDirty);
+				offscreenDirty.setEmpty();
 			}
 			if (surface == null || !surface.isValid()) {
 				return;
@@ -905,12 +981,12 @@ public abstract class Canvas extends Displayable {
 
 		@Override
 		public void enterQueue() {
-			enqueued++;
+			enqueued.incrementAndGet();
 		}
 
 		@Override
 		public void leaveQueue() {
-			enqueued--;
+			enqueued.decrementAndGet();
 		}
 
 		/**
@@ -18,6 +18,7 @@
 package javax.microedition.lcdui;
 
 import android.annotation.SuppressLint;
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Typeface;
@@ -25,6 +26,8 @@ import android.util.DisplayMetrics;
 import android.util.TypedValue;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.microedition.util.ContextHolder;
 
@@ -59,7 +62,13 @@ public class Font {
 	private static final Font[] fonts = new Font[FONT_COUNT];
 	private static final float[] sizes = {22, 18, 26};
 
+	private static final int MAX_CACHED_WIDTHS = 256;
+
 	private static boolean antiAlias;
+	private static boolean glyphCacheEnabled;
+	/** Statistics of text width and glyph caches, not synchronized */
+	static long cacheHits;
+	static long cacheMisses;
 
 	final Paint paint = new Paint();
 	final float ascent;
@@ -68,6 +77,14 @@ public class Font {
 	private final int face;
 	private final int style;
 	private final int size;
+	private final LinkedHashMap<String, Float> widthCache =
+			new LinkedHashMap<String, Float>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Float> eldest) {
+					return size() > MAX_CACHED_WIDTHS;
+				}
+			};
+	private final GlyphCache glyphCache;
 
 	@SuppressLint("WrongConstant")
 	public Font(int face, int style, int size, float height) {
@@ -91,6 +108,7 @@ public class Font {
 		paint.setTypeface(Typeface.create(family, style & Typeface.BOLD_ITALIC));
 		paint.setAntiAlias(antiAlias);
 		paint.setStyle(Paint.Style.FILL);
+		paint.setTextAlign(Paint.Align.LEFT);
 		paint.setUnderlineText((style & STYLE_UNDERLINED) != 0);
 
 		// at first, just set the size (no matter what is put here)
@@ -102,6 +120,7 @@ public class Font {
 		this.height = (int) Math.ceil(paint.getFontMetrics(fm));
 		this.ascent = fm.ascent;
 		this.descent = fm.descent;
+		glyphCache = glyphCacheEnabled && !paint.isUnderlineText() ? new GlyphCache(paint) : null;
 	}
 
 	public static Font getFont(int fontSpecifier) {
@@ -150,19 +169,57 @@ public class Font {
 	}
 
 	public int charWidth(char c) {
-		return (int) Math.ceil(paint.measureText(new char[]{c}, 0, 1));
+		return (int) Math.ceil(measure(String.valueOf(c)));
 	}
 
 	public int charsWidth(char[] ch, int offset, int length) {
-		return (int) Math.ceil(paint.measureText(ch, offset, length));
+		return (int) Math.ceil(measure(new String(ch, offset, length)));
 	}
 
 	public int stringWidth(String text) {
-		return (int) Math.ceil(paint.measureText(text));
+		return (int) Math.ceil(measure(text));
 	}
 
 	public int substringWidth(String str, int offset, int len) {
-		return (int) paint.measureText(str, offset, offset + len);
+		return (int) measure(str.substring(offset, offset + len));
+	}
+
+	/** @return width of the text as it is drawn by {@link #draw} */
+	float measure(String text) {
+		if (glyphCache != null && GlyphCache.isSupported(text)) {
+			return glyphCache.measure(text);
+		}
+		synchronized (widthCache) {
+			Float width = widthCache.get(text);
+			if (width != null) {
+				cacheHits++;
+				return width;
+			}
+			cacheMisses++;
+			float measured = paint.measureText(text);
+			widthCache.put(text, measured);
+			return measured;
+		}
+	}
+
+	/** Draws the text with the left end of the baseline at the given point */
+	void draw(Canvas canvas, String text, float x, float y, int color) {
+		if (glyphCache != null && GlyphCache.isSupported(text)) {
+			glyphCache.draw(canvas, text, x, y, color);
+			return;
+		}
+		paint.setColor(color);
+		canvas.drawText(text, x, y, paint);
+	}
+
+	/** @return number of text width and glyph cache hits */
+	public static long getCacheHits() {
+		return cacheHits;
+	}
+
+	/** @return number of text width and glyph cache misses */
+	public static long getCacheMisses() {
+		return cacheMisses;
 	}
 
 	public boolean isBold() {
@@ -179,6 +236,7 @@ public class Font {
 
 	public static void applySettings(ProfileModel params) {
 		antiAlias = params.fontAA;
+		glyphCacheEnabled = params.fontGlyphCache;
 
 		float small = params.fontSizeSmall;
 		float medium = params.fontSizeMedium;
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+import javax.microedition.util.ContextHolder;
+import javax.microedition.util.Histogram;
+
+/**
+ * Limits the frame rate of the MIDlet by blocking its thread until the next frame.
+ * <p>
+ * Frame deadlines are accumulated by the exact frame period in nanoseconds, so the rate doesn't drift.
+ * In vsync mode the period is rounded to whole display refreshes and deadlines are aligned
+ * to the display vsync, so each frame stays on screen for the same number of refreshes.
+ */
+public final class FramePacer {
+	/** Sleep for the rest of the frame period in milliseconds, as it was done before */
+	public static final int MODE_SLEEP = 0;
+	public static final int MODE_PRECISE = 1;
+	public static final int MODE_VSYNC = 2;
+
+	private static final long SECOND = 1000000000L;
+
+	/** Frame times in microseconds of the last second, p50, p95 and p99 */
+	private static volatile long[] percentiles = new long[3];
+
+	private final Histogram frameTimes = new Histogram(100, 1000);
+	private VsyncTracker vsyncTracker;
+	private int mode;
+	private int fps;
+	private long period;
+	private long deadline;
+	private long lastFrameMillis;
+	private long lastFrame;
+	private long windowStart;
+
+	synchronized void setMode(int mode) {
+		this.mode = mode;
+		if (mode == MODE_VSYNC && vsyncTracker == null
+				&& Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			vsyncTracker = new VsyncTracker();
+		}
+		deadline = 0;
+	}
+
+	/** @param fps frame rate limit, no limit if it is not positive */
+	synchronized void setFps(int fps) {
+		this.fps = fps;
+		period = fps > 0 ? SECOND / fps : 0;
+		deadline = 0;
+	}
+
+	/**
+	 * Blocks the calling thread until the start of the next frame.
+	 * The pacer is shared by all canvases, so it is not locked while sleeping.
+	 */
+	void await() {
+		long remaining = 0;
+		synchronized (this) {
+			if (fps > 0) {
+				if (mode == MODE_SLEEP) {
+					long now = System.currentTimeMillis();
+					long millis = (1000 / fps) - (now - lastFrameMillis);
+					remaining = millis * 1000000;
+					lastFrameMillis = now + Math.max(millis, 0);
+				} else {
+					remaining = nextDeadline();
+				}
+			}
+		}
+		if (remaining > 0) {
+			try {
+				Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+		synchronized (this) {
+			updateStatistics();
+		}
+	}
+
+	/** @return nanoseconds to sleep until the start of the next frame */
+	private long nextDeadline() {
+		long period = this.period;
+		long refresh = 0;
+		VsyncTracker tracker = mode == MODE_VSYNC ? vsyncTracker : null;
+		if (tracker != null) {
+			tracker.request();
+			refresh = tracker.refreshPeriod;
+			period = Math.max(1, Math.round((double) period / refresh)) * refresh;
+		}
+		long now = System.nanoTime();
+		long deadline = this.deadline;
+		if (deadline == 0 || now - deadline > period) {
+			// the first frame or the MIDlet is late for more than a frame, don't try to catch up
+			deadline = now;
+		}
+		if (tracker != null) {
+			long vsync = tracker.lastVsync;
+			if (vsync != 0) {
+				deadline = vsync + Math.round((double) (deadline - vsync) / refresh) * refresh;
+			}
+		}
+		this.deadline = deadline + period;
+		return deadline - now;
+	}
+
+	private void updateStatistics() {
+		long now = System.nanoTime();
+		if (lastFrame != 0) {
+			frameTimes.record((now - lastFrame) / 1000);
+		}
+		lastFrame = now;
+		if (now - windowStart >= SECOND) {
+			windowStart = now;
+			if (frameTimes.getCount() > 0) {
+				percentiles = new long[]{
+						frameTimes.getPercentile(50),
+						frameTimes.getPercentile(95),
+						frameTimes.getPercentile(99)
+				};
+			}
+			frameTimes.reset();
+		}
+	}
+
+	/** @return frame times in microseconds during the last second: p50, p95 and p99 */
+	public static long[] getFrameTimePercentiles() {
+		return percentiles;
+	}
+
+	/**
+	 * Follows the display vsync with Choreographer callbacks,
+	 * which are requested only while the MIDlet renders frames.
+	 */
+	private static class VsyncTracker implements Choreographer.FrameCallback {
+		private final Handler handler = new Handler(Looper.getMainLooper());
+		private final Runnable start = () -> Choreographer.getInstance().postFrameCallback(this);
+		final long refreshPeriod;
+		volatile long lastVsync;
+		private volatile long lastRequest;
+		private volatile boolean active;
+
+		VsyncTracker() {
+			WindowManager wm = (WindowManager) ContextHolder.getAppContext()
+					.getSystemService(Context.WINDOW_SERVICE);
+			float rate = wm.getDefaultDisplay().getRefreshRate();
+			refreshPeriod = (long) (SECOND / (rate >= 1 ? rate : 60));
+		}
+
+		void request() {
+			lastRequest = System.nanoTime();
+			if (!active) {
+				active = true;
+				handler.post(start);
+			}
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			lastVsync = frameTimeNanos;
+			if (System.nanoTime() - lastRequest < SECOND) {
+				Choreographer.getInstance().postFrameCallback(this);
+			} else {
+				active = false;
+			}
+		}
+	}
+}
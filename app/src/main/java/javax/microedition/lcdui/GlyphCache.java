@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Pre-rendered glyphs of a font, drawn as alpha masks with the text color.
+ * <p>
+ * Text is laid out by glyph advances rounded to whole pixels, without kerning and shaping,
+ * like a bitmap font, so only scripts that don't need shaping are supported.
+ */
+class GlyphCache {
+	/** Glyphs are cached for chars below the Hebrew block */
+	private static final int MAX_CHAR = 0x0590;
+
+	private final Paint paint;
+	private final Paint drawPaint = new Paint();
+	private final Glyph[] glyphs = new Glyph[MAX_CHAR];
+	private final char[] chars = new char[1];
+	private final Rect bounds = new Rect();
+
+	GlyphCache(Paint fontPaint) {
+		paint = new Paint(fontPaint);
+		paint.setColor(Color.BLACK);
+		paint.setTextAlign(Paint.Align.LEFT);
+	}
+
+	/** @return true if all chars of the text can be drawn from the cache */
+	static boolean isSupported(String text) {
+		for (int i = 0, length = text.length(); i < length; i++) {
+			char c = text.charAt(i);
+			// combining diacritical marks need shaping
+			if (c >= MAX_CHAR || c >= 0x0300 && c < 0x0370) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	synchronized int measure(String text) {
+		int width = 0;
+		for (int i = 0, length = text.length(); i < length; i++) {
+			width += getGlyph(text.charAt(i)).advance;
+		}
+		return width;
+	}
+
+	synchronized void draw(Canvas canvas, String text, float x, float y, int color) {
+		drawPaint.setColor(color);
+		int baseline = Math.round(y);
+		int pen = Math.round(x);
+		for (int i = 0, length = text.length(); i < length; i++) {
+			Glyph glyph = getGlyph(text.charAt(i));
+			if (glyph.bitmap != null) {
+				canvas.drawBitmap(glyph.bitmap, pen + glyph.left, baseline + glyph.top, drawPaint);
+			}
+			pen += glyph.advance;
+		}
+	}
+
+	private Glyph getGlyph(char c) {
+		Glyph glyph = glyphs[c];
+		if (glyph != null) {
+			Font.cacheHits++;
+			return glyph;
+		}
+		Font.cacheMisses++;
+		glyph = new Glyph();
+		chars[0] = c;
+		glyph.advance = Math.round(paint.measureText(chars, 0, 1));
+		paint.getTextBounds(chars, 0, 1, bounds);
+		if (!bounds.isEmpty()) {
+			// one pixel margin for anti-aliased edges
+			bounds.inset(-1, -1);
+			glyph.left = bounds.left;
+			glyph.top = bounds.top;
+			glyph.bitmap = Bitmap.createBitmap(bounds.width(), bounds.height(), Bitmap.Config.ALPHA_8);
+			new Canvas(glyph.bitmap).drawText(chars, 0, 1, -bounds.left, -bounds.top, paint);
+		}
+		glyphs[c] = glyph;
+		return glyph;
+	}
+
+	private static class Glyph {
+		Bitmap bitmap;
+		int left;
+		int top;
+		int advance;
+	}
+}
@@ -51,6 +51,44 @@ public class Graphics implements
 	public static final int SOLID = 0;
 	public static final int DOTTED = 1;
 
+	/** Matrices of drawRegion transforms without translation, indexed by transform */
+	private static final Matrix[] TRANSFORMS = new Matrix[8];
+	/** Not synchronized, used only for statistics */
+	static long allocatedBytes;
+
+	static {
+		for (int transform = 0; transform < TRANSFORMS.length; transform++) {
+			Matrix matrix = new Matrix();
+			switch (transform) {
+				case TRANS_ROT90:
+					matrix.preRotate(90);
+					break;
+				case TRANS_ROT180:
+					matrix.preRotate(180);
+					break;
+				case TRANS_ROT270:
+					matrix.preRotate(270);
+					break;
+				case TRANS_MIRROR:
+					matrix.preScale(-1, 1);
+					break;
+				case TRANS_MIRROR_ROT90:
+					matrix.preRotate(90);
+					matrix.preScale(-1, 1);
+					break;
+				case TRANS_MIRROR_ROT180:
+					matrix.preRotate(180);
+					matrix.preScale(-1, 1);
+					break;
+				case TRANS_MIRROR_ROT270:
+					matrix.preRotate(270);
+					matrix.preScale(-1, 1);
+					break;
+			}
+			TRANSFORMS[transform] = matrix;
+		}
+	}
+
 	private final Canvas canvas;
 	private final Image image;
 
@@ -61,8 +99,15 @@ public class Graphics implements
 	private int translateY;
 
 	private final Rect clip = new Rect();
+	/**
+	 * Union of the clips since the last reset in image coordinates, drawing can't go beyond it.
+	 * It is the whole image after the bitmap has been handed out.
+	 */
+	private final Rect touched = new Rect();
 	private final Rect rect = new Rect();
 	private final RectF rectF = new RectF();
+	private final Matrix matrix = new Matrix();
+	private int[] scratch = new int[0];
 	private final Path path = new Path();
 
 	private final DashPathEffect dashPathEffect = new DashPathEffect(new float[]{5, 5}, 0);
@@ -89,10 +134,16 @@ public class Graphics implements
 		canvas.setBitmap(image.getBitmap());
 		canvas.clipRect(cl, ct, cr, cb);
 		canvas.getClipBounds(this.clip);
+		touched.set(this.clip);
 		translateX = 0;
 		translateY = 0;
 	}
 
+	/** @return area of the image which could be changed since the last {@link #reset} */
+	Rect getTouched() {
+		return touched;
+	}
+
 	public Canvas getCanvas() {
 		return canvas;
 	}
@@ -196,6 +247,9 @@ public class Graphics implements
 		canvas.translate(translateX, translateY);
 		canvas.clipRect(clip);
 		canvas.getClipBounds(clip);
+		// the new clip may be wider than the previous ones
+		touched.union(clip.left + translateX, clip.top + translateY,
+				clip.right + translateX, clip.bottom + translateY);
 	}
 
 	public void clipRect(int x, int y, int width, int height) {
@@ -295,38 +349,18 @@ public class Graphics implements
 	}
 
 	public void drawChars(char[] data, int offset, int length, int x, int y, int anchor) {
-		Paint paint = font.paint;
-		if ((anchor & Graphics.RIGHT) != 0) {
-			paint.setTextAlign(Paint.Align.RIGHT);
-		} else if ((anchor & Graphics.HCENTER) != 0) {
-			paint.setTextAlign(Paint.Align.CENTER);
-		} else {
-			paint.setTextAlign(Paint.Align.LEFT);
-		}
-
-		float ly;
-		if ((anchor & Graphics.BOTTOM) != 0) {
-			ly = y - font.descent;
-		} else if ((anchor & Graphics.VCENTER) != 0) {
-			ly = y - (font.descent + font.ascent) / 2.0f;
-		} else if ((anchor & Graphics.BASELINE) != 0) {
-			ly = y;
-		} else {
-			ly = y - font.ascent;
-		}
-
-		paint.setColor(fillPaint.getColor());
-		canvas.drawText(data, offset, length, x, ly, paint);
+		drawString(new String(data, offset, length), x, y, anchor);
 	}
 
 	public void drawString(String text, int x, int y, int anchor) {
-		Paint paint = font.paint;
+		// alignment is applied here, so font paint is not changed and text width is cached
+		float lx;
 		if ((anchor & Graphics.RIGHT) != 0) {
-			paint.setTextAlign(Paint.Align.RIGHT);
+			lx = x - font.measure(text);
 		} else if ((anchor & Graphics.HCENTER) != 0) {
-			paint.setTextAlign(Paint.Align.CENTER);
+			lx = x - font.measure(text) / 2.0f;
 		} else {
-			paint.setTextAlign(Paint.Align.LEFT);
+			lx = x;
 		}
 
 		float ly;
@@ -340,8 +374,7 @@ public class Graphics implements
 			ly = y - font.ascent;
 		}
 
-		paint.setColor(fillPaint.getColor());
-		canvas.drawText(text, x, ly, paint);
+		font.draw(canvas, text, lx, ly, fillPaint.getColor());
 	}
 
 	public void drawImage(Image image, int x, int y, int anchor) {
@@ -367,28 +400,7 @@ public class Graphics implements
 	}
 
 	public void drawSubstring(String str, int offset, int len, int x, int y, int anchor) {
-		Paint paint = font.paint;
-		if ((anchor & Graphics.RIGHT) != 0) {
-			paint.setTextAlign(Paint.Align.RIGHT);
-		} else if ((anchor & Graphics.HCENTER) != 0) {
-			paint.setTextAlign(Paint.Align.CENTER);
-		} else {
-			paint.setTextAlign(Paint.Align.LEFT);
-		}
-
-		float ly;
-		if ((anchor & Graphics.BOTTOM) != 0) {
-			ly = y - font.descent;
-		} else if ((anchor & Graphics.VCENTER) != 0) {
-			ly = y - (font.descent + font.ascent) / 2.0f;
-		} else if ((anchor & Graphics.BASELINE) != 0) {
-			ly = y;
-		} else {
-			ly = y - font.ascent;
-		}
-
-		paint.setColor(fillPaint.getColor());
-		canvas.drawText(str, offset, offset + len, x, ly, paint);
+		drawString(str.substring(offset, offset + len), x, y, anchor);
 	}
 
 	public void drawRegion(Image image, int x_src, int y_src, int width, int height,
@@ -401,58 +413,33 @@ public class Graphics implements
 		float dy;
 		srcR.set(x_src, y_src, x_src + width, y_src + height);
 
-		Matrix matrix = new Matrix();
-		switch (transform) {
-			case TRANS_NONE: {
-				if ((anchor & Graphics.RIGHT) != 0) {
-					dx = x_dst - width;
-				} else if ((anchor & Graphics.HCENTER) != 0) {
-					dx = x_dst - width / 2.0f;
-				} else {
-					dx = x_dst;
-				}
-				if ((anchor & Graphics.BOTTOM) != 0) {
-					dy = y_dst - height;
-				} else if ((anchor & Graphics.VCENTER) != 0) {
-					dy = y_dst - height / 2.0f;
-				} else {
-					dy = y_dst;
-				}
-
-				dstR.set(dx, dy, dx + width, dy + height);
-				canvas.drawBitmap(image.getBitmap(), srcR, dstR, null);
-				return;
+		if (transform == TRANS_NONE) {
+			if ((anchor & Graphics.RIGHT) != 0) {
+				dx = x_dst - width;
+			} else if ((anchor & Graphics.HCENTER) != 0) {
+				dx = x_dst - width / 2.0f;
+			} else {
+				dx = x_dst;
+			}
+			if ((anchor & Graphics.BOTTOM) != 0) {
+				dy = y_dst - height;
+			} else if ((anchor & Graphics.VCENTER) != 0) {
+				dy = y_dst - height / 2.0f;
+			} else {
+				dy = y_dst;
 			}
-			case TRANS_ROT90:
-				matrix.preRotate(90);
-				break;
-			case TRANS_ROT180:
-				matrix.preRotate(180);
-				break;
-			case TRANS_ROT270:
-				matrix.preRotate(270);
-				break;
-			case TRANS_MIRROR:
-				matrix.preScale(-1, 1);
-				break;
-			case TRANS_MIRROR_ROT90:
-				matrix.preRotate(90);
-				matrix.preScale(-1, 1);
-				break;
-			case TRANS_MIRROR_ROT180:
-				matrix.preRotate(180);
-				matrix.preScale(-1, 1);
-				break;
-			case TRANS_MIRROR_ROT270:
-				matrix.preRotate(270);
-				matrix.preScale(-1, 1);
-				break;
-			default:
-				throw new IllegalArgumentException("Illegal transform=" + transform);
+
+			dstR.set(dx, dy, dx + width, dy + height);
+			canvas.drawBitmap(image.getBitmap(), srcR, dstR, null);
+			return;
 		}
+		if (transform < 0 || transform >= TRANSFORMS.length) {
+			throw new IllegalArgumentException("Illegal transform=" + transform);
+		}
+		Matrix transformMatrix = TRANSFORMS[transform];
 
 		dstR.set(0, 0, width, height);
-		matrix.mapRect(dstR);
+		transformMatrix.mapRect(dstR);
 
 		if ((anchor & Graphics.RIGHT) != 0) {
 			dx = x_dst - dstR.width();
@@ -469,7 +456,16 @@ public class Graphics implements
 			dy = y_dst;
 		}
 
-		matrix.postTranslate(Math.round(dx - dstR.left), Math.round(dy - dstR.top));
+		int tx = Math.round(dx - dstR.left);
+		int ty = Math.round(dy - dstR.top);
+		Bitmap region = RegionCache.get(image, x_src, y_src, width, height, transform, transformMatrix);
+		if (region != null) {
+			canvas.drawBitmap(region, tx + dstR.left, ty + dstR.top, null);
+			return;
+		}
+
+		matrix.set(transformMatrix);
+		matrix.postTranslate(tx, ty);
 		dstR.set(0, 0, width, height);
 
 		canvas.save();
@@ -505,9 +501,15 @@ public class Graphics implements
 			}
 		}
 
-		// copy pixels to a new array and apply processAlpha flag here,
+		if (processAlpha && scanlength >= width) {
+			// pixels can be drawn as is
+			canvas.drawBitmap(rgbData, offset, scanlength, x, y, width, height, true, null);
+			return;
+		}
+
+		// copy pixels to a scratch array and apply processAlpha flag here,
 		// to avoid Android restrictions
-		int[] pixels = new int[height * width];
+		int[] pixels = getScratch(height * width);
 		int alphaCorrection = processAlpha ? Color.TRANSPARENT : Color.BLACK;
 		for (int i = 0; i < height; i++) {
 			int s = offset + i * scanlength;
@@ -524,7 +526,7 @@ public class Graphics implements
 	public void copyArea(int x_src, int y_src, int width, int height,
 						 int x_dest, int y_dest, int anchor) {
 		if (width <= 0 || height <= 0) return;
-		final int[] pixels = new int[width * height];
+		final int[] pixels = getScratch(width * height);
 		image.getBitmap().getPixels(pixels, 0, width, x_src, y_src, width, height);
 		float dx;
 		if ((anchor & Graphics.RIGHT) != 0) {
@@ -545,6 +547,22 @@ public class Graphics implements
 		canvas.drawBitmap(pixels, 0, width, dx, dy, width, height, false, null);
 	}
 
+	/** @return scratch array of at least the given size, it is reused by subsequent calls */
+	private int[] getScratch(int size) {
+		int[] scratch = this.scratch;
+		if (scratch.length < size) {
+			scratch = new int[size];
+			this.scratch = scratch;
+			allocatedBytes += size * 4L;
+		}
+		return scratch;
+	}
+
+	/** @return total bytes of temporary pixel arrays allocated by drawing operations */
+	public static long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
 	public void getPixels(int[] pixels, int offset, int stride,
 						  int x, int y, int width, int height) {
 		Bitmap b = image.getBitmap();
@@ -553,8 +571,11 @@ public class Graphics implements
 		b.getPixels(pixels, offset, stride, x, y, w, h);
 	}
 
+	/** Callers may write the pixels directly, ignoring the clip, so the whole image is touched */
 	public Bitmap getBitmap() {
-		return image.getBitmap();
+		Bitmap bitmap = image.getBitmap();
+		touched.set(0, 0, bitmap.getWidth(), bitmap.getHeight());
+		return bitmap;
 	}
 
 	void flush(Image image, int x, int y, int width, int height) {
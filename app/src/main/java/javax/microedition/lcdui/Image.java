@@ -31,6 +31,9 @@ import javax.microedition.shell.AppClassLoader;
 import ru.playsoftware.j2meloader.util.PNGUtils;
 
 public class Image {
+	private static final int MAX_RGB_SCRATCH = 256 * 1024;
+	private static int[] rgbScratch = new int[0];
+
 	private Bitmap bitmap;
 	private Graphics graphics;
 	private final Rect bounds;
@@ -100,15 +103,23 @@ public class Image {
 	}
 
 	public static Image createRGBImage(int[] rgb, int width, int height, boolean processAlpha) {
-		if (!processAlpha) {
+		if (processAlpha) {
+			return new Image(Bitmap.createBitmap(rgb, width, height, Bitmap.Config.ARGB_8888));
+		}
+		synchronized (Image.class) {
 			final int length = width * height;
-			int[] tmp = new int[length];
+			int[] tmp = rgbScratch;
+			if (tmp.length < length) {
+				tmp = new int[length];
+				Graphics.allocatedBytes += length * 4L;
+			}
 			for (int i = 0; i < length; i++) {
 				tmp[i] = rgb[i] | 0xFF000000;
 			}
-			rgb = tmp;
+			// don't hold large arrays after a single big image
+			rgbScratch = length <= MAX_RGB_SCRATCH ? tmp : rgbScratch;
+			return new Image(Bitmap.createBitmap(tmp, width, height, Bitmap.Config.ARGB_8888));
 		}
-		return new Image(Bitmap.createBitmap(rgb, width, height, Bitmap.Config.ARGB_8888));
 	}
 
 	public Graphics getGraphics() {
@@ -135,6 +146,10 @@ public class Image {
 		dst.getSingleGraphics().getCanvas().drawBitmap(bitmap, bounds, bounds, null);
 	}
 
+	void copyTo(Image dst, Rect area) {
+		dst.getSingleGraphics().getCanvas().drawBitmap(bitmap, area, area, null);
+	}
+
 	void copyTo(Image dst, int x, int y) {
 		Rect r = new Rect(x, y, x + bounds.right, y + bounds.bottom);
 		dst.getSingleGraphics().getCanvas().drawBitmap(bitmap, bounds, r, null);
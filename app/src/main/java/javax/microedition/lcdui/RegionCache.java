@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * LRU cache of transformed image regions for {@link Graphics#drawRegion}.
+ * <p>
+ * A region gets a pre-transformed bitmap when it is drawn with the same transform
+ * for the second time, so it is drawn then without matrix and canvas state changes.
+ * Only immutable images are cached, contents of mutable ones may change at any time.
+ * Source images are referenced weakly, entries of collected images are dropped.
+ */
+public final class RegionCache {
+	private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+	private static final int MAX_ENTRIES = 1024;
+	/** Approximate memory cost of an entry without the bitmap, counted against the budget */
+	private static final int ENTRY_BYTES = 128;
+
+	private static final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<>(64, 0.75f, true);
+	private static final ReferenceQueue<Image> collectedImages = new ReferenceQueue<>();
+	private static final Key lookupKey = new Key();
+	private static int cacheBytes;
+
+	private static long hitCount;
+	private static long missCount;
+
+	private RegionCache() {
+	}
+
+	/**
+	 * @param matrix transform matrix without translation
+	 * @return transformed region or null if it is not cached
+	 */
+	static synchronized Bitmap get(Image image, int x, int y, int width, int height,
+								   int transform, Matrix matrix) {
+		if (image.isMutable() || x < 0 || y < 0
+				|| x + width > image.getWidth() || y + height > image.getHeight()) {
+			return null;
+		}
+		purge();
+		Key key = lookupKey;
+		key.set(image, x, y, width, height, transform);
+		Entry entry = cache.get(key);
+		key.image = null;
+		if (entry == null) {
+			// remember the region, bitmap is created on the second use
+			Key newKey = new Key();
+			newKey.set(image, x, y, width, height, transform);
+			newKey.reference = new ImageReference(image, newKey);
+			newKey.image = null;
+			cache.put(newKey, new Entry());
+			cacheBytes += ENTRY_BYTES;
+			missCount++;
+			trim();
+			return null;
+		}
+		if (entry.bitmap == null) {
+			entry.bitmap = Bitmap.createBitmap(image.getBitmap(), x, y, width, height, matrix, false);
+			cacheBytes += entry.bitmap.getByteCount();
+			missCount++;
+			trim();
+			return entry.bitmap;
+		}
+		hitCount++;
+		return entry.bitmap;
+	}
+
+	private static void trim() {
+		Iterator<Entry> iterator = cache.values().iterator();
+		while ((cacheBytes > MAX_CACHE_BYTES || cache.size() > MAX_ENTRIES) && iterator.hasNext()) {
+			cacheBytes -= iterator.next().getBytes();
+			iterator.remove();
+		}
+	}
+
+	/** Drops entries of collected source images */
+	private static void purge() {
+		ImageReference reference;
+		while ((reference = (ImageReference) collectedImages.poll()) != null) {
+			Entry entry = cache.remove(reference.key);
+			if (entry != null) {
+				cacheBytes -= entry.getBytes();
+			}
+		}
+	}
+
+	public static synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public static synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public static synchronized int getCacheBytes() {
+		return cacheBytes;
+	}
+
+	private static class Key {
+		/** Set only in the lookup key, stored keys reference the image weakly */
+		Image image;
+		ImageReference reference;
+		int hash;
+		int x;
+		int y;
+		int width;
+		int height;
+		int transform;
+
+		void set(Image image, int x, int y, int width, int height, int transform) {
+			this.image = image;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.transform = transform;
+			int result = System.identityHashCode(image);
+			result = 31 * result + x;
+			result = 31 * result + y;
+			result = 31 * result + width;
+			result = 31 * result + height;
+			result = 31 * result + transform;
+			hash = result;
+		}
+
+		Image getImage() {
+			return image != null ? image : reference.get();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key key = (Key) o;
+			Image image = getImage();
+			return image != null && image == key.getImage() && x == key.x && y == key.y && width == key.width
+					&& height == key.height && transform == key.transform;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static class ImageReference extends WeakReference<Image> {
+		final Key key;
+
+		ImageReference(Image image, Key key) {
+			super(image, collectedImages);
+			this.key = key;
+		}
+	}
+
+	private static class Entry {
+		Bitmap bitmap;
+
+		int getBytes() {
+			return bitmap == null ? ENTRY_BYTES : ENTRY_BYTES + bitmap.getByteCount();
+		}
+	}
+}
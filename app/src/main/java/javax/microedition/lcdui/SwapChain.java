@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui;
+
+import android.graphics.Rect;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Three screen buffers passed between the MIDlet and the presenter without locking.
+ * <p>
+ * The MIDlet draws a frame to the back buffer and publishes it by exchanging it with the ready one,
+ * the presenter takes the ready buffer if it has a newer frame by exchanging it with the front one.
+ * So the MIDlet never waits for the presenter and the presenter always shows the latest complete frame.
+ * <p>
+ * Methods of the MIDlet side must be called with one lock held,
+ * methods of the presenter side must be called from one thread at a time.
+ */
+public final class SwapChain {
+	private static final int INDEX_MASK = 0x3;
+	/** Set when the ready buffer has a frame not taken by the presenter */
+	private static final int FRESH = 0x4;
+
+	/** Counters are for tuning only, so they are not synchronized */
+	private static long droppedFrames;
+	private static long duplicatedFrames;
+
+	private final Image[] buffers = new Image[3];
+	/** Numbers of the frames in the buffers */
+	private final long[] frames = new long[3];
+	/** Area changed in the frame of each buffer since the previous frame */
+	private final Rect[] frameDirty = {new Rect(), new Rect(), new Rect()};
+	/** Area where each buffer differs from the last published frame, the MIDlet side only */
+	private final Rect[] stale = {new Rect(), new Rect(), new Rect()};
+	private final AtomicInteger ready = new AtomicInteger(1);
+	private int back = 0;
+	private int published = -1;
+	private long frame;
+	private int front = 2;
+
+	SwapChain(int width, int height) {
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = Image.createImage(width, height);
+		}
+	}
+
+	/** Resizes all buffers, the presenter may show one frame with the old size */
+	void setSize(int width, int height) {
+		for (Image buffer : buffers) {
+			buffer.setSize(width, height);
+		}
+	}
+
+	/**
+	 * MIDlet side.
+	 *
+	 * @return buffer for the next frame with contents of the last published one
+	 */
+	Image beginFrame() {
+		Image buffer = buffers[back];
+		Rect rect = stale[back];
+		if (!rect.isEmpty()) {
+			buffers[published].copyTo(buffer, rect);
+			rect.setEmpty();
+		}
+		return buffer;
+	}
+
+	/**
+	 * MIDlet side. Makes the frame drawn after {@link #beginFrame()} available to the presenter.
+	 *
+	 * @param dirty area changed since the previous frame
+	 */
+	void publish(Rect dirty) {
+		int back = this.back;
+		for (int i = 0; i < stale.length; i++) {
+			if (i != back) {
+				stale[i].union(dirty);
+			}
+		}
+		frames[back] = ++frame;
+		frameDirty[back].set(dirty);
+		int previous = ready.getAndSet(back | FRESH);
+		if ((previous & FRESH) != 0) {
+			droppedFrames++;
+		}
+		published = back;
+		this.back = previous & INDEX_MASK;
+	}
+
+	/**
+	 * MIDlet side.
+	 *
+	 * @return buffer with the last published frame, it is not changed until the lock is released
+	 */
+	Image getPublished() {
+		return buffers[published >= 0 ? published : back];
+	}
+
+	/**
+	 * Presenter side.
+	 *
+	 * @return buffer with the latest frame, it stays unchanged until the next call
+	 */
+	Image acquire() {
+		if ((ready.get() & FRESH) != 0) {
+			front = ready.getAndSet(front) & INDEX_MASK;
+		} else {
+			duplicatedFrames++;
+		}
+		return buffers[front];
+	}
+
+	/** Presenter side. @return number of the frame returned by {@link #acquire()} */
+	long getFrontFrame() {
+		return frames[front];
+	}
+
+	/** Presenter side. @return area of the acquired frame changed since the frame before it */
+	Rect getFrontDirty() {
+		return frameDirty[front];
+	}
+
+	/** @return number of frames replaced by newer ones before the presenter has taken them */
+	public static long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	/** @return number of times the presenter has shown a frame again as there was no new one */
+	public static long getDuplicatedFrames() {
+		return duplicatedFrames;
+	}
+}
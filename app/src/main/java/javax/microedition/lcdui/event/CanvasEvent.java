@@ -18,6 +18,8 @@ package javax.microedition.lcdui.event;
 
 import android.util.Log;
 
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import javax.microedition.lcdui.Canvas;
 import javax.microedition.util.ArrayStack;
 
@@ -36,7 +38,7 @@ public class CanvasEvent extends Event {
 	public static final int HIDE_NOTIFY = 7;
 	public static final int SIZE_CHANGED = 8;
 
-	private static final int[] enqueued = new int[9];
+	private static final AtomicIntegerArray enqueued = new AtomicIntegerArray(9);
 
 	private Canvas canvas;
 	private int eventType;
@@ -169,12 +171,12 @@ public class CanvasEvent extends Event {
 
 	@Override
 	public void enterQueue() {
-		enqueued[eventType]++;
+		enqueued.incrementAndGet(eventType);
 	}
 
 	@Override
 	public void leaveQueue() {
-		enqueued[eventType]--;
+		enqueued.decrementAndGet(eventType);
 	}
 
 	@Override
@@ -183,9 +185,31 @@ public class CanvasEvent extends Event {
 			switch (eventType) {
 				case KEY_REPEATED:
 				case POINTER_DRAGGED:
-					return enqueued[eventType] < 2;
+					return enqueued.get(eventType) < 2;
 			}
 		}
 		return true;
 	}
+
+	/**
+	 * Only the last of consecutive drags of the same pointer
+	 * and repeats of the same key is processed.
+	 */
+	@Override
+	public boolean replaceableBy(Event next) {
+		if (!(next instanceof CanvasEvent)) {
+			return false;
+		}
+		CanvasEvent event = (CanvasEvent) next;
+		if (event.eventType != eventType || event.canvas != canvas) {
+			return false;
+		}
+		switch (eventType) {
+			case KEY_REPEATED:
+				return event.keyCode == keyCode;
+			case POINTER_DRAGGED:
+				return event.pointer == pointer;
+		}
+		return false;
+	}
 }
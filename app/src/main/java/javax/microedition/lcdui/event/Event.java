@@ -72,4 +72,15 @@ public abstract class Event implements Runnable {
 	 * @return true, if we agree to that
 	 */
 	public abstract boolean placeableAfter(Event event);
+
+	/**
+	 * Check if this queued event can be dropped
+	 * because the next event in the queue makes it obsolete.
+	 *
+	 * @param next the event following this one in the queue
+	 * @return true, if this event need not be processed
+	 */
+	public boolean replaceableBy(Event next) {
+		return false;
+	}
 }
\ No newline at end of file
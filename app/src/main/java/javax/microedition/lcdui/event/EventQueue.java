@@ -17,23 +17,50 @@
 
 package javax.microedition.lcdui.event;
 
-import javax.microedition.util.LinkedList;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.microedition.util.Histogram;
 
 /**
  * The event queue. A really complicated thing.
+ * <p>
+ * Events may be posted from any thread and are processed by the single event thread,
+ * so the queue is a lock-free linked list with many producers and one consumer.
+ * Consecutive pointer drags and key repeats are coalesced before processing.
  */
 public class EventQueue implements Runnable {
+	private static final String TAG = EventQueue.class.getName();
+
 	private static boolean immediate;
 
-	private final LinkedList<Event> queue = new LinkedList<>();
-	private final Object waiter = new Object();
+	/** The last added node, producers append new nodes after it */
+	private final AtomicReference<Node> head;
+	/** The node before the next event to process, it is accessed only by the event thread */
+	private Node tail;
+	private final AtomicInteger size = new AtomicInteger();
 	private final Object interlock = new Object();
 	private final Object callbackLock = new Object();
 
-	private boolean enabled;
-	private Thread thread;
-	private boolean running;
-	private boolean continuerun;
+	/** Number of queued events at the time of processing */
+	private final Histogram depthHistogram = new Histogram(1, 64);
+	/** Time in microseconds from posting of an event to its processing */
+	private final Histogram latencyHistogram = new Histogram(250, 200);
+	private long coalescedCount;
+
+	private volatile boolean enabled;
+	private volatile Thread thread;
+	private volatile boolean waiting;
+	private volatile boolean clearRequested;
+
+	public EventQueue() {
+		Node stub = new Node(null, 0);
+		head = new AtomicReference<>(stub);
+		tail = stub;
+	}
 
 	/**
 	 * Enable immediate processing mode.
@@ -76,43 +103,29 @@ public class EventQueue implements Runnable {
 			return;      // and nothing to do here
 		}
 
-		boolean empty;
-
-		synchronized (queue) {   // all operations with the queue must be synchronized (on itself)
-			empty = queue.isEmpty();
-
-			if (empty || event.placeableAfter(queue.getLast())) {
-				/*
-				 * If the queue itself is empty, then this already implies that either
-				 * exactly one event remains and it is now being processed,
-				 * or there is not a single event left at all.
-				 *
-				 * In both cases, a new event should be added to the queue,
-				 * regardless of event.placeableAfter() value.
-				 */
-
-				queue.addLast(event);
-				event.enterQueue();
-			} else {
-				// it is more correct, but additional checks are required
-				// queue.setLast(event).recycle(); // remove the previous event and add the new one.
-				event.recycle(); // more reliable // leave the previous event, recycle the new one.
-			}
+		/*
+		 * The event of the last node is cleared when it is taken for processing,
+		 * so null means that the queue is empty and the event is added
+		 * regardless of event.placeableAfter() value.
+		 */
+		Node lastNode = head.get();
+		Event last = lastNode.event;
+		// the event thread may take the last event during the check, then the new one is needed
+		if (last != null && !event.placeableAfter(last) && lastNode.event == last) {
+			event.recycle(); // leave the previous event, recycle the new one.
+			return;
 		}
 
-		if (empty) {
-			/*
-			 * on the other hand, if the queue was non-empty,
-			 * there is at least one more iteration for the events,
-			 * and this is not necessary
-			 */
+		event.enterQueue();
+		Node node = new Node(event, System.nanoTime());
+		size.incrementAndGet();
+		// the node becomes visible to the event thread when it is linked to the previous one
+		head.getAndSet(node).next = node;
 
-			synchronized (waiter) {
-				if (running) {
-					continuerun = true;
-				} else {
-					waiter.notifyAll();
-				}
+		if (waiting) {
+			Thread thread = this.thread;
+			if (thread != null) {
+				LockSupport.unpark(thread);
 			}
 		}
 	}
@@ -123,15 +136,19 @@ public class EventQueue implements Runnable {
 	 * @return true, if the queue is empty
 	 */
 	public boolean isEmpty() {
-		return queue.isEmpty();
+		return size.get() == 0;
 	}
 
 	/**
 	 * Clear the queue.
+	 * <p>
+	 * Events are removed by the event thread, before processing of the next event.
 	 */
 	public void clear() {
-		synchronized (queue) {
-			queue.clear();
+		clearRequested = true;
+		Thread thread = this.thread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
 		}
 	}
 
@@ -155,13 +172,17 @@ public class EventQueue implements Runnable {
 	public void stopProcessing() {
 		enabled = false;
 
-		synchronized (waiter) {
-			waiter.notifyAll();
+		Thread thread = this.thread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
 		}
 
 		synchronized (interlock) {
-			thread = null;
+			this.thread = null;
 		}
+		Log.d(TAG, "queue depth: " + depthHistogram
+				+ ", latency us: " + latencyHistogram
+				+ ", coalesced: " + coalescedCount);
 	}
 
 	/**
@@ -170,40 +191,65 @@ public class EventQueue implements Runnable {
 	@Override
 	public void run() {
 		synchronized (interlock) {
-			running = true;
-
 			while (enabled) {
-
-				Event event;
-				synchronized (queue) {
-					event = queue.removeFirst();
+				if (clearRequested) {
+					clearRequested = false;
+					Event event;
+					while ((event = poll()) != null) {
+						discard(event);
+					}
 				}
 
+				Event event = poll();
 				if (event != null) {
+					// drop the event if the next one makes it obsolete
+					Node next;
+					while ((next = tail.next) != null && event.replaceableBy(next.event)) {
+						discard(event);
+						coalescedCount++;
+						event = poll();
+					}
 					synchronized (callbackLock) {
 						event.run();
 					}
+				} else if (size.get() > 0) {
+					// some producer is linking its node right now
+					Thread.yield();
 				} else {
-					synchronized (waiter) {
-						if (continuerun) {
-							continuerun = false;
-						} else {
-							running = false;
-
-							try {
-								waiter.wait();
-							} catch (InterruptedException ie) {
-								ie.printStackTrace();
-							}
-
-							running = true;
-						}
+					waiting = true;
+					if (size.get() == 0 && enabled && !clearRequested) {
+						LockSupport.park(this);
 					}
+					waiting = false;
 				}
 			}
 		}
 	}
 
+	/**
+	 * Take the next event, called only from the event thread.
+	 *
+	 * @return the next event or null if there are no linked events
+	 */
+	private Event poll() {
+		Node next = tail.next;
+		if (next == null) {
+			return null;
+		}
+		depthHistogram.record(size.getAndDecrement());
+		latencyHistogram.record((System.nanoTime() - next.time) / 1000);
+		Event event = next.event;
+		// the node stays in the queue as the one before the next event
+		next.event = null;
+		tail = next;
+		return event;
+	}
+
+	private static void discard(Event event) {
+		event.leaveQueue();
+		event.recycle();
+	}
+
 	public void serviceRepaints(Event paintEvent) {
 		if (immediate) {
 			return;
@@ -213,4 +259,28 @@ public class EventQueue implements Runnable {
 			paintEvent.process();
 		}
 	}
-}
\ No newline at end of file
+
+	public Histogram getDepthHistogram() {
+		return depthHistogram;
+	}
+
+	public Histogram getLatencyHistogram() {
+		return latencyHistogram;
+	}
+
+	/** @return number of events dropped because of the following events of the same kind */
+	public long getCoalescedCount() {
+		return coalescedCount;
+	}
+
+	private static class Node {
+		volatile Event event;
+		volatile Node next;
+		final long time;
+
+		Node(Event event, long time) {
+			this.event = event;
+			this.time = time;
+		}
+	}
+}
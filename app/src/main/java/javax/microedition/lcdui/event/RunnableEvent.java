@@ -18,6 +18,8 @@
 
 package javax.microedition.lcdui.event;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.microedition.util.ArrayStack;
 import javax.microedition.util.ContextHolder;
 
@@ -25,7 +27,7 @@ import ru.playsoftware.j2meloader.R;
 
 public class RunnableEvent extends Event {
 	private static final ArrayStack<RunnableEvent> recycled = new ArrayStack<>();
-	private static int queued;
+	private static final AtomicInteger queued = new AtomicInteger();
 
 	private Runnable runnable;
 
@@ -54,7 +56,7 @@ public class RunnableEvent extends Event {
 
 	@Override
 	public void enterQueue() {
-		if (++queued > 50 && EventQueue.isImmediate()) {
+		if (queued.incrementAndGet() > 50 && EventQueue.isImmediate()) {
 			EventQueue.setImmediate(false);
 			ContextHolder.getActivity().toast(R.string.msg_immediate_mode_disabled);
 		}
@@ -62,7 +64,7 @@ public class RunnableEvent extends Event {
 
 	@Override
 	public void leaveQueue() {
-		queued--;
+		queued.decrementAndGet();
 	}
 
 	@Override
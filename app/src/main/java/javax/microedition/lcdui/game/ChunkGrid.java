@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui.game;
+
+/**
+ * Cell bookkeeping of {@link TiledLayerRenderer}: splits cells of a layer into blocks (chunks),
+ * counts static and animated cells of each chunk and tracks its changed cells.
+ * Chunks are numbered by rows, cell coordinates of changed areas are relative to the chunk.
+ */
+class ChunkGrid {
+	final int chunkColumns;
+	final int chunkRows;
+	final int chunksX;
+	final int chunksY;
+	private final int[][] cells;
+	private final int columns;
+	private final int rows;
+	private final int[] animatedCells;
+	private final int[] staticCells;
+	/** Left, top, right and bottom of changed cells of each chunk, right is 0 if nothing changed */
+	private final int[] dirty;
+
+	ChunkGrid(int[][] cells, int chunkColumns, int chunkRows) {
+		this.cells = cells;
+		this.chunkColumns = chunkColumns;
+		this.chunkRows = chunkRows;
+		rows = cells.length;
+		columns = rows == 0 ? 0 : cells[0].length;
+		chunksX = (columns + chunkColumns - 1) / chunkColumns;
+		chunksY = (rows + chunkRows - 1) / chunkRows;
+		int count = chunksX * chunksY;
+		animatedCells = new int[count];
+		staticCells = new int[count];
+		dirty = new int[count * 4];
+		for (int row = 0; row < rows; row++) {
+			int[] line = cells[row];
+			for (int col = 0; col < columns; col++) {
+				count(chunkIndex(col, row), line[col], 1);
+			}
+		}
+	}
+
+	int chunkIndex(int col, int row) {
+		return row / chunkRows * chunksX + col / chunkColumns;
+	}
+
+	/** @return number of cell columns of the chunk, edge chunks may be narrower */
+	int getColumns(int index) {
+		return Math.min(chunkColumns, columns - index % chunksX * chunkColumns);
+	}
+
+	/** @return number of cell rows of the chunk, edge chunks may be lower */
+	int getRows(int index) {
+		return Math.min(chunkRows, rows - index / chunksX * chunkRows);
+	}
+
+	boolean hasStaticCells(int index) {
+		return staticCells[index] > 0;
+	}
+
+	boolean hasAnimatedCells(int index) {
+		return animatedCells[index] > 0;
+	}
+
+	/** Sets cells in the given area and marks them changed in their chunks */
+	void setCells(int col, int row, int numCols, int numRows, int tileIndex) {
+		if (numCols <= 0 || numRows <= 0) {
+			return;
+		}
+		int endCol = col + numCols;
+		int endRow = row + numRows;
+		for (int r = row; r < endRow; r++) {
+			int[] line = cells[r];
+			for (int c = col; c < endCol; c++) {
+				int index = chunkIndex(c, r);
+				count(index, line[c], -1);
+				count(index, tileIndex, 1);
+				line[c] = tileIndex;
+			}
+		}
+		for (int cy = row / chunkRows, ey = (endRow - 1) / chunkRows; cy <= ey; cy++) {
+			int r0 = cy * chunkRows;
+			for (int cx = col / chunkColumns, ex = (endCol - 1) / chunkColumns; cx <= ex; cx++) {
+				int c0 = cx * chunkColumns;
+				invalidate(cy * chunksX + cx,
+						Math.max(col, c0) - c0, Math.max(row, r0) - r0,
+						Math.min(endCol, c0 + chunkColumns) - c0, Math.min(endRow, r0 + chunkRows) - r0);
+			}
+		}
+	}
+
+	/** Marks all cells of the chunk changed */
+	void invalidate(int index) {
+		int i = index * 4;
+		dirty[i] = 0;
+		dirty[i + 1] = 0;
+		dirty[i + 2] = getColumns(index);
+		dirty[i + 3] = getRows(index);
+	}
+
+	/**
+	 * Gets and resets changed cells of the chunk.
+	 *
+	 * @param out receives left, top, right and bottom of the changed area
+	 * @return false if no cells of the chunk have changed
+	 */
+	boolean takeDirty(int index, int[] out) {
+		int i = index * 4;
+		if (dirty[i + 2] == 0) {
+			return false;
+		}
+		System.arraycopy(dirty, i, out, 0, 4);
+		dirty[i] = 0;
+		dirty[i + 1] = 0;
+		dirty[i + 2] = 0;
+		dirty[i + 3] = 0;
+		return true;
+	}
+
+	private void invalidate(int index, int left, int top, int right, int bottom) {
+		int i = index * 4;
+		if (dirty[i + 2] == 0) {
+			dirty[i] = left;
+			dirty[i + 1] = top;
+			dirty[i + 2] = right;
+			dirty[i + 3] = bottom;
+		} else {
+			dirty[i] = Math.min(dirty[i], left);
+			dirty[i + 1] = Math.min(dirty[i + 1], top);
+			dirty[i + 2] = Math.max(dirty[i + 2], right);
+			dirty[i + 3] = Math.max(dirty[i + 3], bottom);
+		}
+	}
+
+	private void count(int chunkIndex, int tileIndex, int delta) {
+		if (tileIndex < 0) {
+			animatedCells[chunkIndex] += delta;
+		} else if (tileIndex > 0) {
+			staticCells[chunkIndex] += delta;
+		}
+	}
+}
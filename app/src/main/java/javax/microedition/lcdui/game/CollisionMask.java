@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui.game;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.microedition.lcdui.Image;
+
+/**
+ * Opaque pixels of a whole image with applied transform, one bit per pixel.
+ * <p>
+ * Masks are built on first use and cached per image and transform,
+ * only for immutable images as changes of mutable ones can't be tracked.
+ * Rows are stored as 64-bit words, so collision is checked 64 pixels at a time.
+ */
+final class CollisionMask {
+	private static final int INVERTED_AXES = 0x4;
+	private static final int X_FLIP = 0x2;
+	private static final int Y_FLIP = 0x1;
+	private static final int FULLY_OPAQUE_ALPHA = 0xff000000;
+
+	private static final Map<Image, CollisionMask[]> cache = new WeakHashMap<>();
+
+	/** Image size, not transformed */
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int transform;
+	/** Words per row */
+	private final int stride;
+	private final long[] bits;
+
+	private CollisionMask(int imageWidth, int imageHeight, int transform) {
+		this.imageWidth = imageWidth;
+		this.imageHeight = imageHeight;
+		this.transform = transform;
+		int width = (transform & INVERTED_AXES) != 0 ? imageHeight : imageWidth;
+		int height = (transform & INVERTED_AXES) != 0 ? imageWidth : imageHeight;
+		stride = (width + 63) >>> 6;
+		bits = new long[stride * height];
+	}
+
+	/** @return mask or null if the image is mutable */
+	static CollisionMask get(Image image, int transform) {
+		if (image.isMutable()) {
+			return null;
+		}
+		synchronized (cache) {
+			CollisionMask[] masks = cache.get(image);
+			if (masks == null) {
+				masks = new CollisionMask[8];
+				masks[0] = create(image);
+				cache.put(image, masks);
+			}
+			CollisionMask mask = masks[transform];
+			if (mask == null) {
+				mask = masks[0].transform(transform);
+				masks[transform] = mask;
+			}
+			return mask;
+		}
+	}
+
+	private static CollisionMask create(Image image) {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		CollisionMask mask = new CollisionMask(width, height, Sprite.TRANS_NONE);
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++) {
+			image.getRGB(row, 0, width, 0, y, width, 1);
+			mask.setRow(y, row, 0);
+		}
+		return mask;
+	}
+
+	/**
+	 * Builds mask of the pixels in ARGB format with the transform, it is not cached.
+	 * Only for tests, which can't create an {@link Image} without the platform;
+	 * masks of images are taken by {@link #get(Image, int)}.
+	 */
+	static CollisionMask create(int[] argb, int width, int height, int transform) {
+		CollisionMask mask = new CollisionMask(width, height, Sprite.TRANS_NONE);
+		for (int y = 0; y < height; y++) {
+			mask.setRow(y, argb, y * width);
+		}
+		return transform == Sprite.TRANS_NONE ? mask : mask.transform(transform);
+	}
+
+	private void setRow(int y, int[] argb, int offset) {
+		long[] bits = this.bits;
+		int rowOffset = y * stride;
+		for (int x = 0; x < imageWidth; x++) {
+			if ((argb[offset + x] & FULLY_OPAQUE_ALPHA) == FULLY_OPAQUE_ALPHA) {
+				bits[rowOffset + (x >>> 6)] |= 1L << x;
+			}
+		}
+	}
+
+	/** Builds mask of the same image with the transform from this not transformed mask */
+	private CollisionMask transform(int transform) {
+		CollisionMask mask = new CollisionMask(imageWidth, imageHeight, transform);
+		boolean inverted = (transform & INVERTED_AXES) != 0;
+		boolean xFlip = (transform & X_FLIP) != 0;
+		boolean yFlip = (transform & Y_FLIP) != 0;
+		int width = inverted ? imageHeight : imageWidth;
+		int height = inverted ? imageWidth : imageHeight;
+		long[] bits = mask.bits;
+		for (int v = 0, offset = 0; v < height; v++, offset += mask.stride) {
+			for (int u = 0; u < width; u++) {
+				int col, row;
+				if (inverted) {
+					col = xFlip ? imageWidth - 1 - v : v;
+					row = yFlip ? imageHeight - 1 - u : u;
+				} else {
+					col = xFlip ? imageWidth - 1 - u : u;
+					row = yFlip ? imageHeight - 1 - v : v;
+				}
+				if (get(col, row)) {
+					bits[offset + (u >>> 6)] |= 1L << u;
+				}
+			}
+		}
+		return mask;
+	}
+
+	private boolean get(int x, int y) {
+		return (this.bits[y * stride + (x >>> 6)] & 1L << x) != 0;
+	}
+
+	/**
+	 * Checks opaque pixels of two images for intersection.
+	 * Regions are given as in Sprite: the top-left corner of the area in the source image
+	 * and the size of the area in painter space, i.e. after transform.
+	 */
+	static boolean collides(CollisionMask mask1, int x1, int y1,
+							CollisionMask mask2, int x2, int y2,
+							int width, int height) {
+		int u1 = mask1.originX(x1, y1, width);
+		int v1 = mask1.originY(x1, y1, height);
+		int u2 = mask2.originX(x2, y2, width);
+		int v2 = mask2.originY(x2, y2, height);
+		long[] bits1 = mask1.bits;
+		long[] bits2 = mask2.bits;
+		int stride1 = mask1.stride;
+		int stride2 = mask2.stride;
+		for (int row = 0; row < height; row++) {
+			int offset1 = (v1 + row) * stride1;
+			int offset2 = (v2 + row) * stride2;
+			for (int i = 0; i < width; i += 64) {
+				long word = bits(bits1, offset1, stride1, u1 + i) & bits(bits2, offset2, stride2, u2 + i);
+				int n = width - i;
+				if (n < 64) {
+					word &= (1L << n) - 1;
+				}
+				if (word != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/** @return 64 pixels of the row starting from the given one */
+	private static long bits(long[] bits, int offset, int stride, int x) {
+		int word = x >>> 6;
+		int shift = x & 63;
+		long value = bits[offset + word] >>> shift;
+		if (shift != 0 && word + 1 < stride) {
+			value |= bits[offset + word + 1] << (64 - shift);
+		}
+		return value;
+	}
+
+	/** @return column of the mask corresponding to the left column of the area */
+	private int originX(int x, int y, int width) {
+		if ((transform & INVERTED_AXES) != 0) {
+			return (transform & Y_FLIP) != 0 ? imageHeight - y - width : y;
+		}
+		return (transform & X_FLIP) != 0 ? imageWidth - x - width : x;
+	}
+
+	/** @return row of the mask corresponding to the top row of the area */
+	private int originY(int x, int y, int height) {
+		if ((transform & INVERTED_AXES) != 0) {
+			return (transform & X_FLIP) != 0 ? imageWidth - x - height : x;
+		}
+		return (transform & Y_FLIP) != 0 ? imageHeight - y - height : y;
+	}
+}
@@ -889,6 +889,13 @@ public class Sprite extends Layer {
 											Image image2, int transform2,
 											int width, int height) {
 
+		CollisionMask mask1 = CollisionMask.get(image1, transform1);
+		CollisionMask mask2 = mask1 == null ? null : CollisionMask.get(image2, transform2);
+		if (mask2 != null) {
+			return CollisionMask.collides(mask1, image1XOffset, image1YOffset,
+					mask2, image2XOffset, image2YOffset, width, height);
+		}
+
 		// starting point of comparison
 		int startY1;
 		// x and y increments
@@ -32,6 +32,7 @@ public class TiledLayer extends Layer {
 	int[] tileSetY;
 	private int[] anim_to_static;
 	private int numOfAnimTiles;
+	private TiledLayerRenderer renderer;
 
 	public TiledLayer(int columns, int rows, Image image, int tileWidth,
 					  int tileHeight) {
@@ -116,8 +117,7 @@ public class TiledLayer extends Layer {
 			}
 		}
 
-		cellMatrix[row][col] = tileIndex;
-
+		renderer.setCells(col, row, 1, 1, tileIndex);
 	}
 
 	public int getCell(int col, int row) {
@@ -150,12 +150,7 @@ public class TiledLayer extends Layer {
 			}
 		}
 
-		for (int rowCount = row; rowCount < row + numRows; rowCount++) {
-			for (int columnCount = col;
-				 columnCount < col + numCols; columnCount++) {
-				cellMatrix[rowCount][columnCount] = tileIndex;
-			}
-		}
+		renderer.setCells(col, row, numCols, numRows, tileIndex);
 	}
 
 	public final int getCellWidth() {
@@ -239,6 +234,15 @@ public class TiledLayer extends Layer {
 				endRow -= number;
 			}
 
+			if (startColumn >= endColumn || startRow >= endRow) {
+				return;
+			}
+			if (!sourceImage.isMutable()) {
+				// content of immutable tiles can't change, so static cells are drawn from cache
+				renderer.paint(g, this.x, this.y, startColumn, endColumn, startRow, endRow);
+				return;
+			}
+
 			// paint all visible cells
 			int tileIndex = 0;
 
@@ -312,5 +316,7 @@ public class TiledLayer extends Layer {
 				currentTile++;
 			}
 		}
+		renderer = new TiledLayerRenderer(this, cellMatrix, image, tileSetX, tileSetY,
+				tileWidth, tileHeight);
 	}
 }
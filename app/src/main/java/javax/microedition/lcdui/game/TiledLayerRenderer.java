@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui.game;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+
+import javax.microedition.lcdui.Graphics;
+import javax.microedition.lcdui.Image;
+
+/**
+ * Draws static cells of a {@link TiledLayer} from cached bitmaps of cell blocks (chunks),
+ * only animated cells are drawn one by one.
+ * <p>
+ * A chunk is redrawn only in the area of cells changed since it was drawn,
+ * so scrolling of the layer costs one bitmap draw per visible chunk.
+ * Least recently drawn chunks are released above the memory budget.
+ */
+class TiledLayerRenderer {
+	/** Preferred chunk size in pixels */
+	private static final int CHUNK_SIZE = 128;
+	private static final int MAX_CACHE_BYTES = 4 * 1024 * 1024;
+
+	private final TiledLayer layer;
+	private final int[][] cells;
+	private final Bitmap tileSet;
+	private final int[] tileSetX;
+	private final int[] tileSetY;
+	private final int cellWidth;
+	private final int cellHeight;
+	private final ChunkGrid grid;
+	private final Chunk[] chunks;
+	private final ArrayList<Chunk> allocated = new ArrayList<>();
+	private final Canvas canvas = new Canvas();
+	private final Rect srcRect = new Rect();
+	private final Rect dstRect = new Rect();
+	/** Changed cells of the chunk being drawn: left, top, right, bottom */
+	private final int[] dirty = new int[4];
+	private int cacheBytes;
+	private int frame;
+
+	TiledLayerRenderer(TiledLayer layer, int[][] cells, Image tileSet, int[] tileSetX, int[] tileSetY,
+					   int cellWidth, int cellHeight) {
+		this.layer = layer;
+		this.cells = cells;
+		this.tileSet = tileSet.getBitmap();
+		this.tileSetX = tileSetX;
+		this.tileSetY = tileSetY;
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		grid = new ChunkGrid(cells, Math.max(1, CHUNK_SIZE / cellWidth), Math.max(1, CHUNK_SIZE / cellHeight));
+		chunks = new Chunk[grid.chunksX * grid.chunksY];
+	}
+
+	/** Sets cells of the layer in the given area and invalidates their cached images */
+	synchronized void setCells(int col, int row, int numCols, int numRows, int tileIndex) {
+		grid.setCells(col, row, numCols, numRows, tileIndex);
+	}
+
+	/** Paints cells in the given range, the range must not be empty */
+	void paint(Graphics g, int x, int y, int startColumn, int endColumn, int startRow, int endRow) {
+		frame++;
+		ChunkGrid grid = this.grid;
+		int chunkColumns = grid.chunkColumns;
+		int chunkRows = grid.chunkRows;
+		int endChunkX = (endColumn - 1) / chunkColumns;
+		int endChunkY = (endRow - 1) / chunkRows;
+		for (int cy = startRow / chunkRows; cy <= endChunkY; cy++) {
+			int r0 = cy * chunkRows;
+			int ty = y + r0 * cellHeight;
+			for (int cx = startColumn / chunkColumns; cx <= endChunkX; cx++) {
+				int index = cy * grid.chunksX + cx;
+				int c0 = cx * chunkColumns;
+				int tx = x + c0 * cellWidth;
+				if (grid.hasStaticCells(index)) {
+					Chunk chunk = getChunk(index, c0, r0);
+					g.drawImage(chunk.image, tx, ty, Graphics.TOP | Graphics.LEFT);
+				}
+				if (grid.hasAnimatedCells(index)) {
+					paintAnimated(g, tx, ty,
+							Math.max(startColumn, c0), Math.min(endColumn, c0 + chunkColumns),
+							Math.max(startRow, r0), Math.min(endRow, r0 + chunkRows));
+				}
+			}
+		}
+	}
+
+	private void paintAnimated(Graphics g, int x, int y, int startColumn, int endColumn,
+							   int startRow, int endRow) {
+		int c0 = startColumn / grid.chunkColumns * grid.chunkColumns;
+		int r0 = startRow / grid.chunkRows * grid.chunkRows;
+		for (int row = startRow; row < endRow; row++) {
+			int[] line = cells[row];
+			int ty = y + (row - r0) * cellHeight;
+			for (int col = startColumn; col < endColumn; col++) {
+				int tileIndex = line[col];
+				if (tileIndex >= 0) {
+					continue;
+				}
+				tileIndex = layer.getAnimatedTile(tileIndex);
+				if (tileIndex == 0) {
+					continue;
+				}
+				g.drawRegion(layer.sourceImage,
+						tileSetX[tileIndex], tileSetY[tileIndex],
+						cellWidth, cellHeight,
+						Sprite.TRANS_NONE,
+						x + (col - c0) * cellWidth, ty,
+						Graphics.TOP | Graphics.LEFT);
+			}
+		}
+	}
+
+	private Chunk getChunk(int index, int c0, int r0) {
+		Chunk chunk;
+		int[] dirty = this.dirty;
+		synchronized (this) {
+			chunk = chunks[index];
+			if (chunk == null) {
+				int width = grid.getColumns(index) * cellWidth;
+				int height = grid.getRows(index) * cellHeight;
+				int bytes = width * height * 4;
+				trim(bytes);
+				chunk = new Chunk(index, width, height);
+				grid.invalidate(index);
+				chunks[index] = chunk;
+				allocated.add(chunk);
+				cacheBytes += bytes;
+			}
+			chunk.lastUsed = frame;
+			if (!grid.takeDirty(index, dirty)) {
+				return chunk;
+			}
+		}
+		// cells changed after this point will be marked dirty again
+		Canvas canvas = this.canvas;
+		canvas.setBitmap(chunk.image.getBitmap());
+		canvas.save();
+		int left = dirty[0];
+		int top = dirty[1];
+		int right = dirty[2];
+		int bottom = dirty[3];
+		canvas.clipRect(left * cellWidth, top * cellHeight, right * cellWidth, bottom * cellHeight);
+		canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+		canvas.restore();
+		for (int row = top; row < bottom; row++) {
+			int[] line = cells[r0 + row];
+			int ty = row * cellHeight;
+			for (int col = left; col < right; col++) {
+				int tileIndex = line[c0 + col];
+				if (tileIndex <= 0) {
+					continue;
+				}
+				int sx = tileSetX[tileIndex];
+				int sy = tileSetY[tileIndex];
+				int tx = col * cellWidth;
+				srcRect.set(sx, sy, sx + cellWidth, sy + cellHeight);
+				dstRect.set(tx, ty, tx + cellWidth, ty + cellHeight);
+				canvas.drawBitmap(tileSet, srcRect, dstRect, null);
+			}
+		}
+		canvas.setBitmap(null);
+		return chunk;
+	}
+
+	/** Releases least recently used chunks that were not drawn in the current frame */
+	private void trim(int required) {
+		while (cacheBytes + required > MAX_CACHE_BYTES) {
+			Chunk victim = null;
+			for (Chunk chunk : allocated) {
+				if (chunk.lastUsed != frame && (victim == null || chunk.lastUsed < victim.lastUsed)) {
+					victim = chunk;
+				}
+			}
+			if (victim == null) {
+				return;
+			}
+			allocated.remove(victim);
+			chunks[victim.index] = null;
+			Bitmap bitmap = victim.image.getBitmap();
+			cacheBytes -= bitmap.getWidth() * bitmap.getHeight() * 4;
+		}
+	}
+
+	private static class Chunk {
+		final int index;
+		final Image image;
+		int lastUsed;
+
+		Chunk(int index, int width, int height) {
+			this.index = index;
+			image = new Image(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+		}
+	}
+}
@@ -20,13 +20,29 @@ import android.view.View;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import javax.microedition.lcdui.Font;
+import javax.microedition.lcdui.FramePacer;
+import javax.microedition.lcdui.Graphics;
+import javax.microedition.lcdui.RegionCache;
+import javax.microedition.lcdui.SwapChain;
 import javax.microedition.lcdui.graphics.CanvasWrapper;
+import javax.microedition.shell.AppClassLoader;
 
 public class FpsCounter extends TimerTask implements Layer {
 
 	private final View view;
 	private String prevFrameCount = "0";
 	private int totalFrameCount;
+	private long totalUploadBytes;
+	private long prevAllocatedBytes = Graphics.getAllocatedBytes();
+	private long prevDroppedFrames = SwapChain.getDroppedFrames();
+	private long prevDuplicatedFrames = SwapChain.getDuplicatedFrames();
+	private long prevTextHits = Font.getCacheHits();
+	private long prevTextMisses = Font.getCacheMisses();
+	private long prevRegionHits = RegionCache.getHitCount();
+	private long prevRegionMisses = RegionCache.getMissCount();
+	private int prevResourceHits = AppClassLoader.getResourceCacheHits();
+	private int prevResourceMisses = AppClassLoader.getResourceCacheMisses();
 	private final Timer timer;
 
 	public FpsCounter(View view) {
@@ -36,8 +52,62 @@ public class FpsCounter extends TimerTask implements Layer {
 	}
 
 	public void run() {
-		prevFrameCount = String.valueOf(totalFrameCount);
+		StringBuilder sb = new StringBuilder().append(totalFrameCount);
+		long uploadBytes = totalUploadBytes;
+		if (uploadBytes > 0) {
+			sb.append(" | ").append((uploadBytes + 1023) / 1024).append(" KB/s");
+		}
+		long allocatedBytes = Graphics.getAllocatedBytes();
+		long allocated = allocatedBytes - prevAllocatedBytes;
+		prevAllocatedBytes = allocatedBytes;
+		if (allocated > 0) {
+			sb.append(" | alloc ").append((allocated + 1023) / 1024).append(" KB/s");
+		}
+		long droppedFrames = SwapChain.getDroppedFrames();
+		long duplicatedFrames = SwapChain.getDuplicatedFrames();
+		long dropped = droppedFrames - prevDroppedFrames;
+		long duplicated = duplicatedFrames - prevDuplicatedFrames;
+		prevDroppedFrames = droppedFrames;
+		prevDuplicatedFrames = duplicatedFrames;
+		if (dropped > 0 || duplicated > 0) {
+			sb.append(" | drop ").append(dropped).append(" dup ").append(duplicated);
+		}
+		long[] frameTimes = FramePacer.getFrameTimePercentiles();
+		if (frameTimes[2] > 0) {
+			sb.append(" | ").append(frameTimes[0] / 1000)
+					.append('/').append(frameTimes[1] / 1000)
+					.append('/').append(frameTimes[2] / 1000).append(" ms");
+		}
+		long textHits = Font.getCacheHits();
+		long textMisses = Font.getCacheMisses();
+		long hits = textHits - prevTextHits;
+		long lookups = hits + textMisses - prevTextMisses;
+		prevTextHits = textHits;
+		prevTextMisses = textMisses;
+		if (lookups > 0) {
+			sb.append(" | text ").append(hits * 100 / lookups).append('%');
+		}
+		long regionHits = RegionCache.getHitCount();
+		long regionMisses = RegionCache.getMissCount();
+		long rgnHits = regionHits - prevRegionHits;
+		long rgnLookups = rgnHits + regionMisses - prevRegionMisses;
+		prevRegionHits = regionHits;
+		prevRegionMisses = regionMisses;
+		if (rgnLookups > 0) {
+			sb.append(" | region ").append(rgnHits * 100 / rgnLookups).append('%');
+		}
+		int resourceHits = AppClassLoader.getResourceCacheHits();
+		int resourceMisses = AppClassLoader.getResourceCacheMisses();
+		int resHits = resourceHits - prevResourceHits;
+		int resLookups = resHits + resourceMisses - prevResourceMisses;
+		prevResourceHits = resourceHits;
+		prevResourceMisses = resourceMisses;
+		if (resLookups > 0) {
+			sb.append(" | res ").append(resHits * 100 / resLookups).append('%');
+		}
+		prevFrameCount = sb.toString();
 		totalFrameCount = 0;
+		totalUploadBytes = 0;
 		view.postInvalidate();
 	}
 
@@ -45,6 +115,11 @@ public class FpsCounter extends TimerTask implements Layer {
 		totalFrameCount++;
 	}
 
+	/** Adds bytes of the screen texture uploaded for the current frame */
+	public void addUploadBytes(int bytes) {
+		totalUploadBytes += bytes;
+	}
+
 	public void paint(CanvasWrapper g) {
 		g.setFillColor(0x90000000);
 		g.setTextColor(0xFF00FF00);
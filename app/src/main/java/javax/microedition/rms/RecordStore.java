@@ -25,12 +25,49 @@
 package javax.microedition.rms;
 
 import javax.microedition.rms.impl.AndroidRecordStoreManager;
+import javax.microedition.rms.impl.LogRecordStoreManager;
+import javax.microedition.rms.impl.RecordStoreManager;
+import javax.microedition.rms.impl.WriteBehindRecordStoreManager;
+
+import ru.playsoftware.j2meloader.config.ProfileModel;
 
 public class RecordStore {
 	public static final int AUTHMODE_PRIVATE = 0;
 	public static final int AUTHMODE_ANY = 1;
 
-	private static final AndroidRecordStoreManager recordStoreManager = new AndroidRecordStoreManager();
+	private static RecordStoreManager recordStoreManager = new AndroidRecordStoreManager();
+
+	public static void applySettings(ProfileModel params) {
+		RecordStoreManager manager;
+		if (params.rmsJournal) {
+			manager = new LogRecordStoreManager();
+		} else {
+			manager = new AndroidRecordStoreManager();
+		}
+		if (params.rmsWriteBehind) {
+			manager = new WriteBehindRecordStoreManager(manager, params.rmsFlushInterval);
+		}
+		if (recordStoreManager instanceof WriteBehindRecordStoreManager) {
+			((WriteBehindRecordStoreManager) recordStoreManager).shutdown();
+		}
+		recordStoreManager = manager;
+	}
+
+	/**
+	 * Writes deferred record changes to disk.
+	 *
+	 * @param wait true - write in the calling thread, false - schedule writing in background
+	 */
+	public static void flushPendingChanges(boolean wait) {
+		if (recordStoreManager instanceof WriteBehindRecordStoreManager) {
+			WriteBehindRecordStoreManager manager = (WriteBehindRecordStoreManager) recordStoreManager;
+			if (wait) {
+				manager.flush();
+			} else {
+				manager.requestFlush();
+			}
+		}
+	}
 
 	public static void deleteRecordStore(String recordStoreName) throws RecordStoreException {
 		recordStoreManager.deleteRecordStore(recordStoreName);
@@ -28,12 +28,14 @@ package javax.microedition.rms.impl;
 
 import android.util.Log;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -53,6 +55,9 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 
 	private final static String RECORD_STORE_RECORD_SUFFIX = ".rsr";
 
+	/** Journal of {@link LogRecordStoreManager} */
+	private final static String RECORD_STORE_LOG_SUFFIX = ".rsl";
+
 	private final static Object NULL_STORE = new Object();
 
 
@@ -72,6 +77,9 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 					if (fileName.endsWith(RECORD_STORE_HEADER_SUFFIX)) {
 						recordStores.put(fileName.substring(0,
 								fileName.length() - RECORD_STORE_HEADER_SUFFIX.length()), NULL_STORE);
+					} else if (fileName.endsWith(RECORD_STORE_LOG_SUFFIX)) {
+						recordStores.put(fileName.substring(0,
+								fileName.length() - RECORD_STORE_LOG_SUFFIX.length()), NULL_STORE);
 					}
 				}
 			}
@@ -120,6 +128,13 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 			return (RecordStoreImpl) value;
 		}
 
+		try {
+			// the store may have been changed while the journal was turned on
+			LogRecordStoreManager.exportJournal(new File(AppClassLoader.getDataDir()), recordStoreName);
+		} catch (IOException e) {
+			Log.w(TAG, "openRecordStore: can't export journal of " + recordStoreName, e);
+		}
+
 		RecordStoreImpl recordStoreImpl;
 		String headerName = getHeaderFileName(recordStoreName);
 		File headerFile = new File(AppClassLoader.getDataDir(), headerName);
@@ -143,37 +158,67 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 
 		recordStores.put(recordStoreName, recordStoreImpl);
 		synchronized (recordStoreImpl.records) {
-			File dataDir = new File(AppClassLoader.getDataDir());
-			String prefix = recordStoreName + ".";
-			String[] files = dataDir.list();
-			if (files != null) {
-				for (String name : files) {
-					if (name.startsWith(prefix) && name.endsWith(RECORD_STORE_RECORD_SUFFIX)) {
-						File file = new File(dataDir, name);
-						try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
-							recordStoreImpl.readRecord(dis);
-						} catch (IOException e) {
-							Log.w(TAG, "loadFromDisk: broken record " + file, e);
-							int pLen = prefix.length();
-							int sLen = RECORD_STORE_RECORD_SUFFIX.length();
-							int nLen = name.length();
-							if (pLen + sLen < nLen) {
-								try {
-									int recordId = Integer.parseInt(name.substring(pLen, nLen - sLen));
-									recordStoreImpl.records.put(recordId, new byte[0]);
-								} catch (NumberFormatException numberFormatException) {
-									Log.w(TAG, "loadFromDisk: ERROR stubbing broken record " + file);
-								}
-							}
+			readRecordIds(recordStoreImpl, recordStoreName);
+		}
+
+		Log.d(TAG, "RecordStore " + recordStoreName + " opened");
+		return recordStoreImpl;
+	}
+
+	/**
+	 * Registers all record files of the store, record bodies are loaded on demand
+	 */
+	private static void readRecordIds(RecordStoreImpl recordStoreImpl, String recordStoreName) {
+		String prefix = recordStoreName + ".";
+		String[] files = new File(AppClassLoader.getDataDir()).list();
+		if (files == null) {
+			return;
+		}
+		int pLen = prefix.length();
+		int sLen = RECORD_STORE_RECORD_SUFFIX.length();
+		for (String name : files) {
+			int nLen = name.length();
+			if (pLen + sLen < nLen && name.startsWith(prefix) && name.endsWith(RECORD_STORE_RECORD_SUFFIX)) {
+				try {
+					recordStoreImpl.readRecordId(Integer.parseInt(name.substring(pLen, nLen - sLen)));
+				} catch (NumberFormatException e) {
+					Log.w(TAG, "readRecordIds: unknown file " + name);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads all record files of the store, broken records are replaced with empty stubs
+	 */
+	static void readRecordFiles(RecordStoreImpl recordStoreImpl, String recordStoreName) {
+		File dataDir = new File(AppClassLoader.getDataDir());
+		String prefix = recordStoreName + ".";
+		String[] files = dataDir.list();
+		if (files == null) {
+			return;
+		}
+		for (String name : files) {
+			if (name.startsWith(prefix) && name.endsWith(RECORD_STORE_RECORD_SUFFIX)) {
+				File file = new File(dataDir, name);
+				try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+					recordStoreImpl.readRecord(dis, true);
+				} catch (IOException e) {
+					Log.w(TAG, "loadFromDisk: broken record " + file, e);
+					int pLen = prefix.length();
+					int sLen = RECORD_STORE_RECORD_SUFFIX.length();
+					int nLen = name.length();
+					if (pLen + sLen < nLen) {
+						try {
+							int recordId = Integer.parseInt(name.substring(pLen, nLen - sLen));
+							recordStoreImpl.putRecord(recordId, new byte[0], true);
+						} catch (NumberFormatException numberFormatException) {
+							Log.w(TAG, "loadFromDisk: ERROR stubbing broken record " + file);
 						}
 					}
 				}
 			}
-
 		}
-
-		Log.d(TAG, "RecordStore " + recordStoreName + " opened");
-		return recordStoreImpl;
 	}
 
 	@Override
@@ -196,18 +241,34 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 	}
 
 	@Override
-	public void loadRecord(RecordStoreImpl recordStoreImpl, int recordId)
+	public synchronized byte[] loadRecord(RecordStoreImpl recordStoreImpl, int recordId)
 			throws RecordStoreException {
 		String recordName = getRecordFileName(recordStoreImpl.getName(), recordId);
 		try (DataInputStream dis = new DataInputStream(ContextHolder.openFileInput(recordName))) {
-			recordStoreImpl.readRecord(dis);
+			dis.readInt(); // record id
+			dis.readInt(); // TODO Tag
+			byte[] data = new byte[dis.readInt()];
+			dis.readFully(data);
+			return data;
 		} catch (FileNotFoundException e) {
 			throw new InvalidRecordIDException();
 		} catch (IOException e) {
 			Log.e(TAG, "RecordStore.loadFromDisk: ERROR reading " + recordName, e);
+			return new byte[0];
 		}
 	}
 
+	@Override
+	public synchronized int getRecordSize(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		String recordName = getRecordFileName(recordStoreImpl.getName(), recordId);
+		File file = ContextHolder.getFileByName(recordName);
+		if (!file.exists()) {
+			throw new InvalidRecordIDException();
+		}
+		return (int) Math.max(file.length() - RecordStoreImpl.RECORD_HEADER_SIZE, 0);
+	}
+
 	@Override
 	public void saveRecord(RecordStoreImpl recordStoreImpl, int recordId)
 			throws RecordStoreException {
@@ -242,15 +303,28 @@ public class AndroidRecordStoreManager implements RecordStoreManager {
 
 		if (recordId != -1) {
 			String recordName = getRecordFileName(recordStore.getName(), recordId);
-			try (DataOutputStream dos = new DataOutputStream(ContextHolder.openFileOutput(recordName))) {
-				recordStore.writeRecord(dos, recordId);
+			// serialize before truncating the file, the record body may have to be read from it
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] data;
+			try (DataOutputStream dos = new DataOutputStream(baos)) {
+				data = recordStore.writeRecord(dos, recordId);
+			} catch (IOException e) {
+				throw new RecordStoreException(e.getMessage());
+			}
+			try (OutputStream os = ContextHolder.openFileOutput(recordName)) {
+				baos.writeTo(os);
 			} catch (IOException e) {
 				Log.e(TAG, "RecordStore.saveToDisk: ERROR writing object to " + recordName, e);
 				throw new RecordStoreException(e.getMessage());
 			}
+			recordStore.recordSaved(recordId, data);
 		}
 	}
 
+	@Override
+	public void closeRecordStore(RecordStoreImpl recordStoreImpl) {
+	}
+
 	@Override
 	public int getSizeAvailable(RecordStoreImpl recordStoreImpl) {
 		// TODO should return free space on device
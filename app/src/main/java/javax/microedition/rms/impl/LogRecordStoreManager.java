@@ -0,0 +1,685 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.rms.impl;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import javax.microedition.rms.InvalidRecordIDException;
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+import javax.microedition.rms.RecordStoreNotFoundException;
+import javax.microedition.shell.AppClassLoader;
+
+import ru.playsoftware.j2meloader.util.FileUtils;
+
+/**
+ * Keeps every record store in a single append-only journal file.
+ * <p>
+ * Journal layout: magic, version, then a sequence of entries
+ * {@code [type:1][length:4][payload:length][crc32:4]}.
+ * Payload of {@link #ENTRY_HEADER} and {@link #ENTRY_RECORD} entries has the same format
+ * as the legacy {@code .rsh} and {@code .rsr} files, {@link #ENTRY_DELETE} holds only record id.
+ * Torn or corrupted tail of the journal is dropped on open, the journal is rewritten
+ * when the dead entries take most of its size. Rewritten journal contains live records
+ * followed by the store header, every entry after the header is a change of the store.
+ */
+public class LogRecordStoreManager implements RecordStoreManager {
+	private static final String TAG = "RecordStore";
+
+	private static final String RECORD_STORE_LOG_SUFFIX = ".rsl";
+	private static final String RECORD_STORE_TEMP_SUFFIX = ".rsl.tmp";
+	private static final String LEGACY_HEADER_SUFFIX = ".rsh";
+	private static final String LEGACY_RECORD_SUFFIX = ".rsr";
+
+	private static final int LOG_MAGIC = 0x4D524C47; // MRLG
+	private static final int LOG_VERSION = 1;
+	private static final int LOG_HEADER_SIZE = 5;
+
+	private static final byte ENTRY_HEADER = 1;
+	private static final byte ENTRY_RECORD = 2;
+	private static final byte ENTRY_DELETE = 3;
+	/** type + length + crc32 */
+	private static final int ENTRY_OVERHEAD = 9;
+
+	/** Journal is never compacted until it exceeds this size */
+	private static final int COMPACT_MIN_SIZE = 64 * 1024;
+	/** Journal is compacted when its size exceeds live data size in this times */
+	private static final int COMPACT_RATIO = 2;
+
+	private static final Object NULL_STORE = new Object();
+
+	private final Map<RecordStoreImpl, Journal> journals = new HashMap<>();
+	private final CRC32 crc = new CRC32();
+	private Map<String, Object> recordStores = null;
+
+	@Override
+	public String getName() {
+		return "Journaled record store";
+	}
+
+	private synchronized void initializeIfNecessary() {
+		if (recordStores == null) {
+			recordStores = new ConcurrentHashMap<>();
+			String[] list = new File(AppClassLoader.getDataDir()).list();
+			if (list != null) {
+				for (String fileName : list) {
+					String name;
+					if (fileName.endsWith(RECORD_STORE_LOG_SUFFIX)) {
+						name = fileName.substring(0, fileName.length() - RECORD_STORE_LOG_SUFFIX.length());
+					} else if (fileName.endsWith(LEGACY_HEADER_SUFFIX)) {
+						name = fileName.substring(0, fileName.length() - LEGACY_HEADER_SUFFIX.length());
+					} else {
+						continue;
+					}
+					recordStores.put(name, NULL_STORE);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void deleteRecordStore(String recordStoreName) throws RecordStoreException {
+		initializeIfNecessary();
+
+		recordStoreName = recordStoreName.replaceAll(FileUtils.ILLEGAL_FILENAME_CHARS, "");
+		Object value = recordStores.get(recordStoreName);
+		if (value == null) {
+			throw new RecordStoreNotFoundException(recordStoreName);
+		}
+		if (value instanceof RecordStoreImpl && ((RecordStoreImpl) value).isOpen()) {
+			throw new RecordStoreException();
+		}
+
+		File dataDir = new File(AppClassLoader.getDataDir());
+		//noinspection ResultOfMethodCallIgnored
+		new File(dataDir, recordStoreName + RECORD_STORE_LOG_SUFFIX).delete();
+		//noinspection ResultOfMethodCallIgnored
+		new File(dataDir, recordStoreName + RECORD_STORE_TEMP_SUFFIX).delete();
+		deleteLegacyFiles(dataDir, recordStoreName);
+
+		recordStores.remove(recordStoreName);
+		Log.d(TAG, "RecordStore " + recordStoreName + " deleted");
+	}
+
+	@Override
+	public synchronized RecordStore openRecordStore(String recordStoreName, boolean createIfNecessary)
+			throws RecordStoreException {
+		initializeIfNecessary();
+		recordStoreName = recordStoreName.replaceAll(FileUtils.ILLEGAL_FILENAME_CHARS, "");
+
+		Object value = recordStores.get(recordStoreName);
+		if (value instanceof RecordStoreImpl && ((RecordStoreImpl) value).isOpen()) {
+			((RecordStoreImpl) value).setOpen();
+			return (RecordStoreImpl) value;
+		}
+
+		File dataDir = new File(AppClassLoader.getDataDir());
+		File logFile = new File(dataDir, recordStoreName + RECORD_STORE_LOG_SUFFIX);
+		File legacyHeader = new File(dataDir, recordStoreName + LEGACY_HEADER_SUFFIX);
+		// legacy files are newer if the store was changed while the journal was turned off,
+		// otherwise the migration was interrupted after the journal was written
+		boolean legacyIsNewer = isNewer(legacyHeader, logFile);
+		RecordStoreImpl recordStoreImpl = new RecordStoreImpl(this);
+		Journal journal = null;
+		boolean loaded = false;
+		if (logFile.exists() && !legacyIsNewer) {
+			journal = replayQuietly(recordStoreImpl, logFile);
+			loaded = journal != null;
+		}
+		if (!loaded && legacyHeader.exists()) {
+			recordStoreImpl = new RecordStoreImpl(this);
+			loaded = readLegacyFiles(recordStoreImpl, legacyHeader, recordStoreName);
+			if (!loaded && legacyIsNewer) {
+				// legacy files are broken, fall back to the older journal
+				recordStoreImpl = new RecordStoreImpl(this);
+				journal = replayQuietly(recordStoreImpl, logFile);
+				loaded = journal != null;
+			}
+		}
+		if (!loaded) {
+			if (!createIfNecessary && !logFile.exists() && !legacyHeader.exists()) {
+				throw new RecordStoreNotFoundException(recordStoreName);
+			}
+			recordStoreImpl = new RecordStoreImpl(this, recordStoreName);
+		}
+		recordStoreImpl.setOpen();
+
+		if (journal == null) {
+			journal = new Journal(logFile);
+			journals.put(recordStoreImpl, journal);
+			compact(recordStoreImpl, journal);
+			if (legacyHeader.exists()) {
+				deleteLegacyFiles(dataDir, recordStoreName);
+				Log.i(TAG, "RecordStore " + recordStoreName + " migrated to journal");
+			}
+		} else {
+			journals.put(recordStoreImpl, journal);
+			compactIfNecessary(recordStoreImpl, journal);
+			if (legacyHeader.exists()) {
+				deleteLegacyFiles(dataDir, recordStoreName);
+			}
+		}
+
+		recordStores.put(recordStoreName, recordStoreImpl);
+		Log.d(TAG, "RecordStore " + recordStoreName + " opened");
+		return recordStoreImpl;
+	}
+
+	private Journal replayQuietly(RecordStoreImpl recordStoreImpl, File logFile) {
+		try {
+			return replay(recordStoreImpl, logFile);
+		} catch (IOException e) {
+			Log.w(TAG, "openRecordStore: broken journal " + logFile, e);
+			return null;
+		}
+	}
+
+	private static boolean readLegacyFiles(RecordStoreImpl recordStoreImpl, File legacyHeader,
+										   String recordStoreName) {
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(legacyHeader))) {
+			recordStoreImpl.readHeader(dis);
+			synchronized (recordStoreImpl.records) {
+				AndroidRecordStoreManager.readRecordFiles(recordStoreImpl, recordStoreName);
+			}
+			return true;
+		} catch (IOException e) {
+			Log.w(TAG, "openRecordStore: broken header " + legacyHeader, e);
+			return false;
+		}
+	}
+
+	@Override
+	public String[] listRecordStores() {
+		initializeIfNecessary();
+
+		String[] result = recordStores.keySet().toArray(new String[0]);
+
+		if (result.length > 0) {
+			return result;
+		} else {
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void deleteRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		Journal journal = getJournal(recordStoreImpl);
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(4);
+			new DataOutputStream(baos).writeInt(recordId);
+			append(journal, ENTRY_DELETE, baos.toByteArray());
+			Slot slot = journal.index.remove(recordId);
+			if (slot != null) {
+				journal.liveBytes -= slot.size;
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "RecordStore.deleteRecord: ERROR writing to " + journal.file, e);
+			throw new RecordStoreException(e.getMessage());
+		}
+		compactIfNecessary(recordStoreImpl, journal);
+	}
+
+	@Override
+	public synchronized byte[] loadRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		Journal journal = getJournal(recordStoreImpl);
+		Slot slot = getSlot(journal, recordId);
+		byte[] data = new byte[slot.size - ENTRY_OVERHEAD - RecordStoreImpl.RECORD_HEADER_SIZE];
+		try {
+			RandomAccessFile raf = journal.raf;
+			raf.seek(slot.offset + 5 + RecordStoreImpl.RECORD_HEADER_SIZE);
+			raf.readFully(data);
+		} catch (IOException e) {
+			Log.e(TAG, "RecordStore.loadRecord: ERROR reading " + journal.file, e);
+			throw new RecordStoreException(e.getMessage());
+		}
+		return data;
+	}
+
+	@Override
+	public synchronized int getRecordSize(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		Slot slot = getSlot(getJournal(recordStoreImpl), recordId);
+		return slot.size - ENTRY_OVERHEAD - RecordStoreImpl.RECORD_HEADER_SIZE;
+	}
+
+	@Override
+	public synchronized void saveRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		Journal journal = getJournal(recordStoreImpl);
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] data = recordStoreImpl.writeRecord(new DataOutputStream(baos), recordId);
+			long offset = append(journal, ENTRY_RECORD, baos.toByteArray());
+			Slot slot = new Slot(offset, baos.size() + ENTRY_OVERHEAD);
+			Slot old = journal.index.put(recordId, slot);
+			if (old != null) {
+				journal.liveBytes -= old.size;
+			}
+			journal.liveBytes += slot.size;
+			recordStoreImpl.recordSaved(recordId, data);
+		} catch (IOException e) {
+			Log.e(TAG, "RecordStore.saveRecord: ERROR writing to " + journal.file, e);
+			throw new RecordStoreException(e.getMessage());
+		}
+		compactIfNecessary(recordStoreImpl, journal);
+	}
+
+	@Override
+	public synchronized void closeRecordStore(RecordStoreImpl recordStoreImpl) {
+		Journal journal = journals.remove(recordStoreImpl);
+		if (journal == null) {
+			return;
+		}
+		// save actual version and modification time, so they aren't restored from the changes count
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			synchronized (recordStoreImpl.records) {
+				recordStoreImpl.writeHeader(new DataOutputStream(baos));
+			}
+			append(journal, ENTRY_HEADER, baos.toByteArray());
+		} catch (IOException e) {
+			Log.w(TAG, "RecordStore.closeRecordStore: ERROR writing header to " + journal.file, e);
+		}
+		journal.close();
+	}
+
+	@Override
+	public int getSizeAvailable(RecordStoreImpl recordStoreImpl) {
+		// TODO should return free space on device
+		return 1024 * 1024;
+	}
+
+	private Journal getJournal(RecordStoreImpl recordStoreImpl) throws RecordStoreException {
+		Journal journal = journals.get(recordStoreImpl);
+		if (journal == null) {
+			throw new RecordStoreException("Journal is closed");
+		}
+		return journal;
+	}
+
+	private Slot getSlot(Journal journal, int recordId) throws InvalidRecordIDException {
+		Slot slot = journal.index.get(recordId);
+		if (slot == null) {
+			throw new InvalidRecordIDException();
+		}
+		return slot;
+	}
+
+	/**
+	 * Restores store state from the journal, drops the broken tail if it is present.
+	 *
+	 * @throws IOException if the journal doesn't contain a valid store header
+	 */
+	private Journal replay(RecordStoreImpl recordStoreImpl, File file) throws IOException {
+		Journal journal = new Journal(file);
+		long length = file.length();
+		long position = LOG_HEADER_SIZE;
+		int mutations = 0;
+		boolean hasHeader = false;
+		byte[] payload = new byte[256];
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (dis.readInt() != LOG_MAGIC || dis.readByte() != LOG_VERSION) {
+				throw new IOException("Unknown journal format");
+			}
+			synchronized (recordStoreImpl.records) {
+				while (position + ENTRY_OVERHEAD <= length) {
+					byte type = dis.readByte();
+					int size = dis.readInt();
+					if (size < 0 || position + ENTRY_OVERHEAD + size > length) {
+						break;
+					}
+					if (payload.length < size) {
+						payload = new byte[size];
+					}
+					dis.readFully(payload, 0, size);
+					int checksum = dis.readInt();
+					crc.reset();
+					crc.update(type);
+					crc.update(size >>> 24);
+					crc.update(size >>> 16);
+					crc.update(size >>> 8);
+					crc.update(size);
+					crc.update(payload, 0, size);
+					if ((int) crc.getValue() != checksum) {
+						break;
+					}
+					DataInputStream entry = new DataInputStream(new ByteArrayInputStream(payload, 0, size));
+					Slot slot = new Slot(position, size + ENTRY_OVERHEAD);
+					if (type == ENTRY_HEADER) {
+						recordStoreImpl.readHeader(entry);
+						journal.headerSize = slot.size;
+						mutations = 0;
+						hasHeader = true;
+					} else if (type == ENTRY_RECORD) {
+						// body is loaded on demand
+						int recordId = entry.readInt();
+						recordStoreImpl.readRecordId(recordId);
+						Slot old = journal.index.put(recordId, slot);
+						if (old != null) {
+							journal.liveBytes -= old.size;
+						}
+						journal.liveBytes += slot.size;
+						mutations++;
+					} else if (type == ENTRY_DELETE) {
+						int recordId = entry.readInt();
+						recordStoreImpl.readDeletedRecord(recordId);
+						Slot old = journal.index.remove(recordId);
+						if (old != null) {
+							journal.liveBytes -= old.size;
+						}
+						mutations++;
+					} else {
+						break;
+					}
+					position += slot.size;
+				}
+			}
+		} catch (EOFException e) {
+			Log.w(TAG, "replay: unexpected end of journal " + file, e);
+		}
+		if (!hasHeader) {
+			throw new IOException("Store header not found");
+		}
+		if (mutations > 0) {
+			recordStoreImpl.applyReplayedMutations(mutations, file.lastModified());
+		}
+		journal.open();
+		if (position < length) {
+			Log.w(TAG, "replay: drop broken tail of " + file + " at " + position);
+			journal.raf.setLength(position);
+		}
+		journal.size = position;
+		return journal;
+	}
+
+	/** Appends a single entry to the journal, returns its offset */
+	private long append(Journal journal, byte type, byte[] payload) throws IOException {
+		int size = payload.length;
+		byte[] entry = new byte[size + ENTRY_OVERHEAD];
+		entry[0] = type;
+		putInt(entry, 1, size);
+		System.arraycopy(payload, 0, entry, 5, size);
+		crc.reset();
+		crc.update(entry, 0, size + 5);
+		putInt(entry, size + 5, (int) crc.getValue());
+
+		long offset = journal.size;
+		RandomAccessFile raf = journal.raf;
+		raf.seek(offset);
+		raf.write(entry);
+		journal.size = offset + entry.length;
+		return offset;
+	}
+
+	private void compactIfNecessary(RecordStoreImpl recordStoreImpl, Journal journal)
+			throws RecordStoreException {
+		long size = journal.size;
+		if (size > COMPACT_MIN_SIZE && size > (journal.headerSize + journal.liveBytes) * COMPACT_RATIO) {
+			compact(recordStoreImpl, journal);
+		}
+	}
+
+	/**
+	 * Rewrites the journal with the store header and live records only.
+	 * New journal is synced to disk before it replaces the old one.
+	 */
+	private void compact(RecordStoreImpl recordStoreImpl, Journal journal) throws RecordStoreException {
+		File temp = new File(journal.file.getPath().replace(RECORD_STORE_LOG_SUFFIX, RECORD_STORE_TEMP_SUFFIX));
+		HashMap<Integer, Slot> index = new HashMap<>();
+		HashMap<Integer, byte[]> written = new HashMap<>();
+		long size = LOG_HEADER_SIZE;
+		int headerSize;
+		long liveBytes = 0;
+		try (FileOutputStream fos = new FileOutputStream(temp)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+			out.writeInt(LOG_MAGIC);
+			out.writeByte(LOG_VERSION);
+
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			DataOutputStream dos = new DataOutputStream(baos);
+			synchronized (recordStoreImpl.records) {
+				for (Map.Entry<Integer, byte[]> entry : recordStoreImpl.records.entrySet()) {
+					Integer recordId = entry.getKey();
+					baos.reset();
+					if (entry.getValue() != null) {
+						written.put(recordId, recordStoreImpl.writeRecord(dos, recordId));
+					} else {
+						// not loaded, copy as is from the old journal
+						readPayload(journal, journal.index.get(recordId), baos);
+					}
+					int entrySize = writeEntry(out, ENTRY_RECORD, baos);
+					index.put(recordId, new Slot(size, entrySize));
+					size += entrySize;
+					liveBytes += entrySize;
+				}
+				// header goes last, so the records before it aren't counted as changes on replay
+				baos.reset();
+				recordStoreImpl.writeHeader(dos);
+				headerSize = writeEntry(out, ENTRY_HEADER, baos);
+				size += headerSize;
+			}
+			out.flush();
+			fos.getFD().sync();
+		} catch (IOException e) {
+			Log.e(TAG, "RecordStore.compact: ERROR writing to " + temp, e);
+			//noinspection ResultOfMethodCallIgnored
+			temp.delete();
+			throw new RecordStoreException(e.getMessage());
+		}
+		journal.close();
+		if (!temp.renameTo(journal.file)) {
+			Log.e(TAG, "RecordStore.compact: ERROR renaming " + temp);
+			//noinspection ResultOfMethodCallIgnored
+			temp.delete();
+			reopen(journal);
+			throw new RecordStoreException("Can't replace journal " + journal.file);
+		}
+		journal.index.clear();
+		journal.index.putAll(index);
+		journal.headerSize = headerSize;
+		journal.liveBytes = liveBytes;
+		journal.size = size;
+		reopen(journal);
+		for (Map.Entry<Integer, byte[]> entry : written.entrySet()) {
+			recordStoreImpl.recordSaved(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void readPayload(Journal journal, Slot slot, ByteArrayOutputStream out) throws IOException {
+		if (slot == null || journal.raf == null) {
+			throw new IOException("Record isn't found in " + journal.file);
+		}
+		byte[] buf = new byte[slot.size - ENTRY_OVERHEAD];
+		RandomAccessFile raf = journal.raf;
+		raf.seek(slot.offset + 5);
+		raf.readFully(buf);
+		out.write(buf);
+	}
+
+	private void reopen(Journal journal) throws RecordStoreException {
+		try {
+			journal.open();
+		} catch (FileNotFoundException e) {
+			Log.e(TAG, "RecordStore: ERROR opening " + journal.file, e);
+			throw new RecordStoreException(e.getMessage());
+		}
+	}
+
+	private int writeEntry(OutputStream out, byte type, ByteArrayOutputStream payload)
+			throws IOException {
+		int size = payload.size();
+		byte[] header = new byte[5];
+		header[0] = type;
+		putInt(header, 1, size);
+		crc.reset();
+		crc.update(header);
+		byte[] bytes = payload.toByteArray();
+		crc.update(bytes);
+		byte[] checksum = new byte[4];
+		putInt(checksum, 0, (int) crc.getValue());
+		out.write(header);
+		out.write(bytes);
+		out.write(checksum);
+		return size + ENTRY_OVERHEAD;
+	}
+
+	private static void putInt(byte[] buf, int offset, int value) {
+		buf[offset] = (byte) (value >>> 24);
+		buf[offset + 1] = (byte) (value >>> 16);
+		buf[offset + 2] = (byte) (value >>> 8);
+		buf[offset + 3] = (byte) value;
+	}
+
+	/**
+	 * Moves the store from the journal back to the legacy header and record files,
+	 * so changes made while the journal is turned off are not lost.
+	 * Does nothing if there is no journal or the legacy files are newer.
+	 */
+	static void exportJournal(File dataDir, String recordStoreName) throws IOException {
+		File logFile = new File(dataDir, recordStoreName + RECORD_STORE_LOG_SUFFIX);
+		File legacyHeader = new File(dataDir, recordStoreName + LEGACY_HEADER_SUFFIX);
+		if (!logFile.exists() || isNewer(legacyHeader, logFile)) {
+			return;
+		}
+		LogRecordStoreManager manager = new LogRecordStoreManager();
+		RecordStoreImpl recordStoreImpl = new RecordStoreImpl(manager);
+		Journal journal = manager.replay(recordStoreImpl, logFile);
+		manager.journals.put(recordStoreImpl, journal);
+		try {
+			deleteLegacyFiles(dataDir, recordStoreName);
+			Integer[] recordIds;
+			synchronized (recordStoreImpl.records) {
+				recordIds = recordStoreImpl.records.keySet().toArray(new Integer[0]);
+			}
+			for (Integer recordId : recordIds) {
+				File file = new File(dataDir, recordStoreName + "." + recordId + LEGACY_RECORD_SUFFIX);
+				try (DataOutputStream dos = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(file)))) {
+					recordStoreImpl.writeRecord(dos, recordId);
+				}
+			}
+			// header goes last, the journal is still newer if the export is interrupted
+			try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(legacyHeader))) {
+				recordStoreImpl.writeHeader(dos);
+			}
+		} finally {
+			manager.journals.remove(recordStoreImpl);
+			journal.close();
+		}
+		//noinspection ResultOfMethodCallIgnored
+		logFile.delete();
+		Log.i(TAG, "RecordStore " + recordStoreName + " exported from journal");
+	}
+
+	private static boolean isNewer(File file, File other) {
+		return file.exists() && file.lastModified() > other.lastModified();
+	}
+
+	private static void deleteLegacyFiles(File dataDir, String recordStoreName) {
+		String prefix = recordStoreName + ".";
+		String[] files = dataDir.list();
+		if (files == null) {
+			return;
+		}
+		for (String name : files) {
+			if (!name.startsWith(prefix)) {
+				continue;
+			}
+			if (name.length() == prefix.length() + 3 && name.endsWith(LEGACY_HEADER_SUFFIX)
+					|| isLegacyRecordFile(name, prefix)) {
+				//noinspection ResultOfMethodCallIgnored
+				new File(dataDir, name).delete();
+			}
+		}
+	}
+
+	private static boolean isLegacyRecordFile(String name, String prefix) {
+		int end = name.length() - LEGACY_RECORD_SUFFIX.length();
+		if (end <= prefix.length() || !name.endsWith(LEGACY_RECORD_SUFFIX)) {
+			return false;
+		}
+		for (int i = prefix.length(); i < end; i++) {
+			char c = name.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class Journal {
+		final File file;
+		final HashMap<Integer, Slot> index = new HashMap<>();
+		RandomAccessFile raf;
+		long size;
+		long liveBytes;
+		int headerSize;
+
+		Journal(File file) {
+			this.file = file;
+		}
+
+		void open() throws FileNotFoundException {
+			raf = new RandomAccessFile(file, "rw");
+		}
+
+		void close() {
+			if (raf == null) {
+				return;
+			}
+			try {
+				raf.getFD().sync();
+				raf.close();
+			} catch (IOException e) {
+				Log.w(TAG, "Journal.close: " + file, e);
+			}
+			raf = null;
+		}
+	}
+
+	/** Location of the record entry in the journal */
+	private static class Slot {
+		final long offset;
+		final int size;
+
+		Slot(long offset, int size) {
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+}
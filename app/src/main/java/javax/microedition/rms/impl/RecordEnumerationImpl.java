@@ -24,44 +24,67 @@
  */
 package javax.microedition.rms.impl;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Vector;
+import java.util.Arrays;
 
 import javax.microedition.rms.InvalidRecordIDException;
 import javax.microedition.rms.RecordComparator;
 import javax.microedition.rms.RecordEnumeration;
 import javax.microedition.rms.RecordFilter;
-import javax.microedition.rms.RecordListener;
 import javax.microedition.rms.RecordStore;
 import javax.microedition.rms.RecordStoreException;
 import javax.microedition.rms.RecordStoreNotOpenException;
 
 public class RecordEnumerationImpl implements RecordEnumeration {
+	private static final int[] EMPTY_IDS = new int[0];
+
 	private final RecordStoreImpl recordStoreImpl;
 	private final RecordFilter filter;
 	private final RecordComparator comparator;
 	private boolean keepUpdated;
 
-	private final Vector<EnumerationRecord> enumerationRecords = new Vector<>();
+	/**
+	 * Record ids in enumeration order, only first {@link #size} elements are valid.
+	 * Records equal for the comparator, or all without it, are ordered by id,
+	 * so updates keep the order a rebuild would make.
+	 * Bodies are not kept, they are read through the record cache of the store when needed.
+	 */
+	private int[] recordIds = EMPTY_IDS;
+	private int size;
 	private int currentRecord;
 
-	private final RecordListener recordListener = new RecordListener() {
+	private final ExtendedRecordListener recordListener = new ExtendedRecordListener() {
+
+		@Override
+		public void recordEvent(int type, long timestamp, RecordStore recordStore, int recordId) {
+			switch (type) {
+				case RECORD_ADD:
+					recordAdded(recordStore, recordId);
+					break;
+				case RECORD_CHANGE:
+					recordChanged(recordStore, recordId);
+					break;
+				case RECORD_DELETE:
+					recordDeleted(recordStore, recordId);
+					break;
+			}
+		}
 
 		@Override
 		public void recordAdded(RecordStore recordStore, int recordId) {
-			rebuild();
+			insert(recordId);
 		}
 
 		@Override
 		public void recordChanged(RecordStore recordStore, int recordId) {
-			rebuild();
+			synchronized (RecordEnumerationImpl.this) {
+				remove(recordId);
+				insert(recordId);
+			}
 		}
 
 		@Override
 		public void recordDeleted(RecordStore recordStore, int recordId) {
-			rebuild();
+			remove(recordId);
 		}
 
 	};
@@ -81,105 +104,126 @@ public class RecordEnumerationImpl implements RecordEnumeration {
 	}
 
 	@Override
-	public int numRecords() {
-		return enumerationRecords.size();
+	public synchronized int numRecords() {
+		return size;
 	}
 
 	@Override
-	public byte[] nextRecord() throws RecordStoreException {
+	public synchronized byte[] nextRecord() throws RecordStoreException {
 		if (!recordStoreImpl.isOpen()) {
 			throw new RecordStoreNotOpenException();
 		}
 
-		if (currentRecord >= numRecords()) {
+		if (currentRecord >= size) {
 			throw new InvalidRecordIDException();
 		}
 
-		byte[] result = enumerationRecords.elementAt(currentRecord).value.clone();
+		byte[] result = recordStoreImpl.getRecordData(recordIds[currentRecord]).clone();
 		currentRecord++;
 
 		return result;
 	}
 
 	@Override
-	public int nextRecordId() throws InvalidRecordIDException {
-		if (currentRecord >= numRecords()) {
+	public synchronized int nextRecordId() throws InvalidRecordIDException {
+		if (currentRecord >= size) {
 			throw new InvalidRecordIDException();
 		}
 
-		int result = enumerationRecords.elementAt(currentRecord).recordId;
+		int result = recordIds[currentRecord];
 		currentRecord++;
 
 		return result;
 	}
 
 	@Override
-	public byte[] previousRecord() throws RecordStoreException {
+	public synchronized byte[] previousRecord() throws RecordStoreException {
 		if (!recordStoreImpl.isOpen()) {
 			throw new RecordStoreNotOpenException();
 		}
-		if (currentRecord < 0) {
+		if (currentRecord <= 0) {
 			throw new InvalidRecordIDException();
 		}
 
 		currentRecord--;
 
-		return enumerationRecords.elementAt(currentRecord).value.clone();
+		return recordStoreImpl.getRecordData(recordIds[currentRecord]).clone();
 	}
 
 	@Override
-	public int previousRecordId() throws InvalidRecordIDException {
-		if (currentRecord < 0) {
+	public synchronized int previousRecordId() throws InvalidRecordIDException {
+		if (currentRecord <= 0) {
 			throw new InvalidRecordIDException();
 		}
 
 		currentRecord--;
 
-		return enumerationRecords.elementAt(currentRecord).recordId;
+		return recordIds[currentRecord];
 	}
 
 	@Override
-	public boolean hasNextElement() {
-		return currentRecord != numRecords();
+	public synchronized boolean hasNextElement() {
+		return currentRecord < size;
 	}
 
 	@Override
-	public boolean hasPreviousElement() {
-		return currentRecord != 0;
+	public synchronized boolean hasPreviousElement() {
+		return currentRecord > 0;
 	}
 
 	@Override
-	public void reset() {
+	public synchronized void reset() {
 		currentRecord = 0;
 	}
 
 	@Override
-	public void rebuild() {
-		enumerationRecords.removeAllElements();
+	public synchronized void rebuild() {
+		int[] ids;
+		synchronized (recordStoreImpl.records) {
+			ids = new int[recordStoreImpl.records.size()];
+			int i = 0;
+			for (int recordId : recordStoreImpl.records.keySet()) {
+				ids[i++] = recordId;
+			}
+		}
+		Arrays.sort(ids);
+		// bodies are held only while sorting
+		byte[][] data = comparator == null ? null : new byte[ids.length][];
 		//
 		// filter
 		//
-		synchronized (recordStoreImpl.records) {
-			HashMap<Integer, byte[]> records = recordStoreImpl.records;
-			for (Map.Entry<Integer, byte[]> e : records.entrySet()) {
-				byte[] data = e.getValue();
-				if (filter != null && !filter.matches(data)) {
+		int count = 0;
+		boolean loadValues = filter != null || comparator != null;
+		for (int recordId : ids) {
+			byte[] value = null;
+			if (loadValues) {
+				try {
+					value = recordStoreImpl.getRecordData(recordId);
+				} catch (RecordStoreException e) {
+					continue; // deleted in the meantime
+				}
+				if (filter != null && !filter.matches(value)) {
 					continue;
 				}
-				enumerationRecords.add(new EnumerationRecord(e.getKey(), data));
 			}
+			if (data != null) {
+				data[count] = value;
+			}
+			ids[count++] = recordId;
 		}
+		recordIds = ids;
+		size = count;
 
 		//
 		// sort
 		//
-		if (comparator != null) {
-			Collections.sort(enumerationRecords, (lhs, rhs) -> comparator.compare(lhs.value, rhs.value));
+		if (comparator != null && count > 1) {
+			sort(ids, data, ids.clone(), data.clone(), 0, count);
 		}
 	}
 
 	@Override
-	public void keepUpdated(boolean keepUpdated) {
+	public synchronized void keepUpdated(boolean keepUpdated) {
 		if (keepUpdated) {
 			if (!this.keepUpdated) {
 				rebuild();
@@ -193,21 +237,126 @@ public class RecordEnumerationImpl implements RecordEnumeration {
 	}
 
 	@Override
-	public boolean isKeptUpdated() {
+	public synchronized boolean isKeptUpdated() {
 		return keepUpdated;
 	}
 
 	@Override
-	public void destroy() {
+	public synchronized void destroy() {
+		recordStoreImpl.removeRecordListener(recordListener);
+		keepUpdated = false;
+		recordIds = EMPTY_IDS;
+		size = 0;
+		currentRecord = 0;
+	}
+
+	/** Applies addition of the record without rebuilding the enumeration */
+	private synchronized void insert(int recordId) {
+		byte[] value = null;
+		if (filter != null || comparator != null) {
+			try {
+				value = recordStoreImpl.getRecordData(recordId);
+			} catch (RecordStoreException e) {
+				return;
+			}
+			if (filter != null && !filter.matches(value)) {
+				return;
+			}
+		}
+		int index;
+		try {
+			index = search(recordId, value);
+		} catch (RecordStoreException e) {
+			// a record was deleted in the meantime
+			rebuild();
+			return;
+		}
+		if (size == recordIds.length) {
+			recordIds = Arrays.copyOf(recordIds, Math.max(16, size + (size >> 1)));
+		}
+		System.arraycopy(recordIds, index, recordIds, index + 1, size - index);
+		recordIds[index] = recordId;
+		size++;
+		if (index < currentRecord) {
+			currentRecord++;
+		}
+	}
+
+	/** Applies deletion of the record without rebuilding the enumeration */
+	private synchronized void remove(int recordId) {
+		int[] ids = recordIds;
+		int index = -1;
+		for (int i = 0; i < size; i++) {
+			if (ids[i] == recordId) {
+				index = i;
+				break;
+			}
+		}
+		if (index == -1) {
+			return;
+		}
+		int tail = size - index - 1;
+		System.arraycopy(ids, index + 1, ids, index, tail);
+		size--;
+		if (index < currentRecord) {
+			currentRecord--;
+		}
+	}
+
+	/** Returns position of the record among records of the enumeration */
+	private int search(int recordId, byte[] value) throws RecordStoreException {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (precedes(recordId, value, recordIds[mid])) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
 	}
 
-	static class EnumerationRecord {
-		final int recordId;
-		final byte[] value;
+	private boolean precedes(int recordId, byte[] value, int otherId) throws RecordStoreException {
+		if (comparator != null) {
+			int order = comparator.compare(value, recordStoreImpl.getRecordData(otherId));
+			if (order != RecordComparator.EQUIVALENT) {
+				return order == RecordComparator.PRECEDES;
+			}
+		}
+		return recordId < otherId;
+	}
 
-		EnumerationRecord(int recordId, byte[] value) {
-			this.recordId = recordId;
-			this.value = value;
+	/** Stable merge sort of the range of parallel arrays, src arrays are used as scratch */
+	private void sort(int[] ids, byte[][] data, int[] srcIds, byte[][] srcData, int from, int to) {
+		int length = to - from;
+		if (length < 8) {
+			for (int i = from + 1; i < to; i++) {
+				int id = ids[i];
+				byte[] value = data[i];
+				int j = i;
+				while (j > from && comparator.compare(value, data[j - 1]) == RecordComparator.PRECEDES) {
+					ids[j] = ids[j - 1];
+					data[j] = data[j - 1];
+					j--;
+				}
+				ids[j] = id;
+				data[j] = value;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		sort(srcIds, srcData, ids, data, from, mid);
+		sort(srcIds, srcData, ids, data, mid, to);
+		for (int i = from, p = from, q = mid; i < to; i++) {
+			if (q >= to || p < mid && comparator.compare(srcData[q], srcData[p]) != RecordComparator.PRECEDES) {
+				ids[i] = srcIds[p];
+				data[i] = srcData[p++];
+			} else {
+				ids[i] = srcIds[q];
+				data[i] = srcData[q++];
+			}
 		}
 	}
 }
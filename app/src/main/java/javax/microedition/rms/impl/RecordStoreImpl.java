@@ -31,6 +31,10 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
 
 import javax.microedition.rms.InvalidRecordIDException;
@@ -49,10 +53,21 @@ public class RecordStoreImpl extends RecordStore {
 	private static final byte[] fileIdentifier = "MIDRMS".getBytes();
 	private static final byte versionMajor = 0x03;
 	private static final byte versionMinor = 0x00;
+	/** Size of record bodies which are kept in memory after they have been saved */
+	private static final int RECORD_CACHE_SIZE = 512 * 1024;
+	/** Size of the record file header: id, tag and data length */
+	static final int RECORD_HEADER_SIZE = 12;
 
+	/** All record ids of the store, value is null if the record body isn't loaded */
 	final HashMap<Integer, byte[]> records = new HashMap<>();
-
-	private final RecordStoreManager recordStoreManager;
+	/** Loaded record bodies in access order, values are body sizes */
+	private final LinkedHashMap<Integer, Integer> cachedRecords = new LinkedHashMap<>(16, 0.75f, true);
+	/** Records which are changed in memory but not written yet, they are never evicted */
+	private final HashSet<Integer> unsavedRecords = new HashSet<>();
+	private int cachedSize;
+	private int modCount;
+
+	private RecordStoreManager recordStoreManager;
 	private final Vector<RecordListener> recordListeners = new Vector<>();
 
 	private int lastRecordId = 0;
@@ -96,15 +111,134 @@ public class RecordStoreImpl extends RecordStore {
 			lastRecordId = dis.readInt();
 	}
 
-	void readRecord(DataInputStream dis) throws IOException {
+	/**
+	 * @param unsaved true if the record isn't present in the storage of the current manager
+	 */
+	int readRecord(DataInputStream dis, boolean unsaved) throws IOException {
 		int recordId = dis.readInt();
-		if (recordId > lastRecordId) {
-			lastRecordId = recordId;
-		}
 		dis.readInt(); // TODO Tag
 		byte[] data = new byte[dis.readInt()];
 		dis.readFully(data, 0, data.length);
-		this.records.put(recordId, data);
+		putRecord(recordId, data, unsaved);
+		return recordId;
+	}
+
+	/** Registers the record without loading its body */
+	void readRecordId(int recordId) {
+		if (recordId > lastRecordId) {
+			lastRecordId = recordId;
+		}
+		uncacheRecord(recordId);
+		records.put(recordId, null);
+	}
+
+	void readDeletedRecord(int recordId) {
+		if (recordId > lastRecordId) {
+			lastRecordId = recordId;
+		}
+		uncacheRecord(recordId);
+		records.remove(recordId);
+	}
+
+	/** Must be called under lock of {@link #records} */
+	void putRecord(int recordId, byte[] data, boolean unsaved) {
+		if (recordId > lastRecordId) {
+			lastRecordId = recordId;
+		}
+		records.put(recordId, data);
+		Integer oldSize = cachedRecords.put(recordId, data.length);
+		if (oldSize != null) {
+			cachedSize -= oldSize;
+		}
+		cachedSize += data.length;
+		if (unsaved) {
+			unsavedRecords.add(recordId);
+		}
+		trimCache();
+	}
+
+	/**
+	 * Called by the manager when the record body has been written to the storage,
+	 * so it can be evicted from memory.
+	 *
+	 * @param data written record body, ignored if the record has been changed since then
+	 */
+	void recordSaved(int recordId, byte[] data) {
+		synchronized (records) {
+			if (records.get(recordId) == data && unsavedRecords.remove(recordId)) {
+				trimCache();
+			}
+		}
+	}
+
+	private void uncacheRecord(int recordId) {
+		Integer size = cachedRecords.remove(recordId);
+		if (size != null) {
+			cachedSize -= size;
+		}
+		unsavedRecords.remove(recordId);
+	}
+
+	private void trimCache() {
+		if (cachedSize <= RECORD_CACHE_SIZE) {
+			return;
+		}
+		for (Iterator<Map.Entry<Integer, Integer>> it = cachedRecords.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<Integer, Integer> entry = it.next();
+			Integer recordId = entry.getKey();
+			if (unsavedRecords.contains(recordId)) {
+				continue;
+			}
+			records.put(recordId, null);
+			cachedSize -= entry.getValue();
+			it.remove();
+			if (cachedSize <= RECORD_CACHE_SIZE) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the record body without copying, loads it from the storage if necessary.
+	 */
+	byte[] getRecordData(int recordId) throws RecordStoreException {
+		while (true) {
+			int expectedModCount;
+			synchronized (records) {
+				byte[] data = records.get(recordId);
+				if (data != null) {
+					cachedRecords.get(recordId);
+					return data;
+				}
+				if (!records.containsKey(recordId)) {
+					throw new InvalidRecordIDException();
+				}
+				expectedModCount = modCount;
+			}
+			// load without lock, the manager may wait for the records lock during writing
+			byte[] data = recordStoreManager.loadRecord(this, recordId);
+			synchronized (records) {
+				byte[] current = records.get(recordId);
+				if (current != null) {
+					return current;
+				}
+				if (!records.containsKey(recordId)) {
+					throw new InvalidRecordIDException();
+				}
+				if (expectedModCount == modCount) {
+					putRecord(recordId, data, false);
+					return data;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates header fields for record changes restored after the last saved header
+	 */
+	void applyReplayedMutations(int count, long lastModified) {
+		version += count;
+		this.lastModified = lastModified;
 	}
 
 	void writeHeader(DataOutputStream dos) throws IOException {
@@ -122,22 +256,26 @@ public class RecordStoreImpl extends RecordStore {
 		dos.writeInt(lastRecordId);
 	}
 
-	void writeRecord(DataOutputStream dos, int recordId) throws IOException {
+	/**
+	 * @return written record body
+	 */
+	byte[] writeRecord(DataOutputStream dos, int recordId) throws IOException {
 		dos.writeInt(recordId);
 		dos.writeInt(0); // TODO Tag
 		try {
-			byte[] data = getRecord(recordId);
-			if (data == null) {
-				dos.writeInt(0);
-			} else {
-				dos.writeInt(data.length);
-				dos.write(data);
-			}
+			byte[] data = getRecordData(recordId);
+			dos.writeInt(data.length);
+			dos.write(data);
+			return data;
 		} catch (RecordStoreException e) {
 			throw new IOException();
 		}
 	}
 
+	void setRecordStoreManager(RecordStoreManager recordStoreManager) {
+		this.recordStoreManager = recordStoreManager;
+	}
+
 	boolean isOpen() {
 		return open;
 	}
@@ -157,12 +295,19 @@ public class RecordStoreImpl extends RecordStore {
 			if (--openCount > 0) {
 				return;
 			}
+		}
+
+		recordStoreManager.closeRecordStore(this);
 
+		synchronized (records) {
 			if (recordListeners != null) {
 				recordListeners.removeAllElements();
 			}
 
 			records.clear();
+			cachedRecords.clear();
+			unsavedRecords.clear();
+			cachedSize = 0;
 
 			open = false;
 		}
@@ -206,12 +351,16 @@ public class RecordStoreImpl extends RecordStore {
 
 		// TODO include size overhead such as the data structures used to hold the state of the record store
 
-		int result = 0;
+		Integer[] recordIds;
 		synchronized (records) {
-			for (byte[] data : records.values()) {
-				if (data != null) {
-					result += data.length;
-				}
+			recordIds = records.keySet().toArray(new Integer[0]);
+		}
+		int result = 0;
+		for (int recordId : recordIds) {
+			try {
+				result += getRecordSize(recordId);
+			} catch (RecordStoreException ignored) {
+				// deleted in the meantime
 			}
 		}
 		return result;
@@ -281,7 +430,8 @@ public class RecordStoreImpl extends RecordStore {
 
 		int nextRecordID = getNextRecordID();
 		synchronized (records) {
-			records.put(nextRecordID, recordData);
+			putRecord(nextRecordID, recordData, true);
+			modCount++;
 			version++;
 			lastModified = System.currentTimeMillis();
 			lastRecordId = nextRecordID;
@@ -302,9 +452,12 @@ public class RecordStoreImpl extends RecordStore {
 		}
 
 		synchronized (records) {
-			if (records.remove(recordId) == null) {
+			if (!records.containsKey(recordId)) {
 				throw new InvalidRecordIDException();
 			}
+			records.remove(recordId);
+			uncacheRecord(recordId);
+			modCount++;
 			version++;
 			lastModified = System.currentTimeMillis();
 		}
@@ -323,12 +476,14 @@ public class RecordStoreImpl extends RecordStore {
 
 		synchronized (records) {
 			byte[] data = records.get(recordId);
-			if (data == null) {
+			if (data != null) {
+				return data.length;
+			}
+			if (!records.containsKey(recordId)) {
 				throw new InvalidRecordIDException();
 			}
-
-			return data.length;
 		}
+		return recordStoreManager.getRecordSize(this, recordId);
 	}
 
 	@Override
@@ -336,15 +491,9 @@ public class RecordStoreImpl extends RecordStore {
 		if (!open) {
 			throw new RecordStoreNotOpenException();
 		}
-		int recordSize;
-		synchronized (records) {
-			byte[] data = records.get(recordId);
-			if (data == null) {
-				throw new InvalidRecordIDException();
-			}
-			recordSize = data.length;
-			System.arraycopy(data, 0, buffer, offset, recordSize);
-		}
+		byte[] data = getRecordData(recordId);
+		int recordSize = data.length;
+		System.arraycopy(data, 0, buffer, offset, recordSize);
 
 		return recordSize;
 	}
@@ -355,13 +504,8 @@ public class RecordStoreImpl extends RecordStore {
 			throw new RecordStoreNotOpenException();
 		}
 
-		synchronized (records) {
-			byte[] data = records.get(recordId);
-			if (data == null) {
-				throw new InvalidRecordIDException();
-			}
-			return data.length < 1 ? null : data.clone();
-		}
+		byte[] data = getRecordData(recordId);
+		return data.length < 1 ? null : data.clone();
 	}
 
 	@Override
@@ -383,7 +527,8 @@ public class RecordStoreImpl extends RecordStore {
 			if (!records.containsKey(recordId)) {
 				throw new InvalidRecordIDException();
 			}
-			records.put(recordId, recordData);
+			putRecord(recordId, recordData, true);
+			modCount++;
 			version++;
 			lastModified = System.currentTimeMillis();
 		}
@@ -29,6 +29,8 @@ import javax.microedition.rms.RecordStoreException;
 
 public interface RecordStoreManager {
 
+	void closeRecordStore(RecordStoreImpl recordStoreImpl);
+
 	void deleteRecord(RecordStoreImpl recordStoreImpl, int recordId) throws RecordStoreException;
 
 	void deleteRecordStore(String recordStoreName) throws RecordStoreException;
@@ -39,7 +41,9 @@ public interface RecordStoreManager {
 
 	String[] listRecordStores();
 
-	void loadRecord(RecordStoreImpl recordStoreImpl, int recordId) throws RecordStoreException;
+	byte[] loadRecord(RecordStoreImpl recordStoreImpl, int recordId) throws RecordStoreException;
+
+	int getRecordSize(RecordStoreImpl recordStoreImpl, int recordId) throws RecordStoreException;
 
 	RecordStore openRecordStore(String recordStoreName, boolean createIfNecessary)
 			throws RecordStoreException;
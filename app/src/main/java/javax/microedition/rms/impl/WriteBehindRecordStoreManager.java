@@ -0,0 +1,260 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.rms.impl;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+
+/**
+ * Defers record writes of the wrapped manager to a background thread.
+ * <p>
+ * Records are changed in memory immediately, repeated changes of the same record
+ * are coalesced into a single write. Pending changes are written by timer,
+ * on {@link #closeRecordStore(RecordStoreImpl)} and on {@link #flush()}.
+ */
+public class WriteBehindRecordStoreManager implements RecordStoreManager {
+	private static final String TAG = "RecordStore";
+	public static final int DEFAULT_FLUSH_INTERVAL = 2000;
+
+	private final RecordStoreManager delegate;
+	private final HashMap<RecordStoreImpl, LinkedHashMap<Integer, PendingChange>> pending = new HashMap<>();
+	private final Object flushLock = new Object();
+	private final Timer timer;
+	/** Set when the manager is replaced, stores opened through it write synchronously then */
+	private boolean shutdown;
+
+	private long pendingBytes;
+	private int coalescedWrites;
+	private int flushCount;
+	private long lastFlushLatency;
+	private long maxFlushLatency;
+	private long totalFlushLatency;
+
+	public WriteBehindRecordStoreManager(RecordStoreManager delegate, int flushInterval) {
+		this.delegate = delegate;
+		if (flushInterval <= 0) {
+			flushInterval = DEFAULT_FLUSH_INTERVAL;
+		}
+		timer = new Timer("RecordStoreWriter", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval);
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName() + " (write-behind)";
+	}
+
+	@Override
+	public void deleteRecordStore(String recordStoreName) throws RecordStoreException {
+		delegate.deleteRecordStore(recordStoreName);
+	}
+
+	@Override
+	public RecordStore openRecordStore(String recordStoreName, boolean createIfNecessary)
+			throws RecordStoreException {
+		RecordStoreImpl recordStoreImpl =
+				(RecordStoreImpl) delegate.openRecordStore(recordStoreName, createIfNecessary);
+		recordStoreImpl.setRecordStoreManager(this);
+		return recordStoreImpl;
+	}
+
+	@Override
+	public String[] listRecordStores() {
+		return delegate.listRecordStores();
+	}
+
+	@Override
+	public void deleteRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		if (!enqueue(recordStoreImpl, recordId, true, 0)) {
+			delegate.deleteRecord(recordStoreImpl, recordId);
+		}
+	}
+
+	@Override
+	public byte[] loadRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		return delegate.loadRecord(recordStoreImpl, recordId);
+	}
+
+	@Override
+	public int getRecordSize(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		return delegate.getRecordSize(recordStoreImpl, recordId);
+	}
+
+	@Override
+	public void saveRecord(RecordStoreImpl recordStoreImpl, int recordId)
+			throws RecordStoreException {
+		int size;
+		synchronized (recordStoreImpl.records) {
+			byte[] data = recordStoreImpl.records.get(recordId);
+			size = data == null ? 0 : data.length;
+		}
+		if (!enqueue(recordStoreImpl, recordId, false, size)) {
+			delegate.saveRecord(recordStoreImpl, recordId);
+		}
+	}
+
+	@Override
+	public void closeRecordStore(RecordStoreImpl recordStoreImpl) {
+		flush(recordStoreImpl);
+		delegate.closeRecordStore(recordStoreImpl);
+	}
+
+	@Override
+	public int getSizeAvailable(RecordStoreImpl recordStoreImpl) {
+		return delegate.getSizeAvailable(recordStoreImpl);
+	}
+
+	/** Writes all pending changes in the calling thread */
+	public void flush() {
+		ArrayList<RecordStoreImpl> stores;
+		synchronized (this) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			stores = new ArrayList<>(pending.keySet());
+		}
+		for (RecordStoreImpl store : stores) {
+			flush(store);
+		}
+	}
+
+	/** Writes all pending changes and stops the writer thread */
+	public void shutdown() {
+		synchronized (this) {
+			shutdown = true;
+		}
+		timer.cancel();
+		flush();
+	}
+
+	/** Schedules writing of all pending changes on the writer thread */
+	public synchronized void requestFlush() {
+		if (shutdown) {
+			return;
+		}
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, 0);
+	}
+
+	public synchronized long getPendingBytes() {
+		return pendingBytes;
+	}
+
+	public synchronized long getLastFlushLatency() {
+		return lastFlushLatency;
+	}
+
+	public synchronized long getMaxFlushLatency() {
+		return maxFlushLatency;
+	}
+
+	public synchronized long getAverageFlushLatency() {
+		return flushCount == 0 ? 0 : totalFlushLatency / flushCount;
+	}
+
+	public synchronized int getCoalescedWrites() {
+		return coalescedWrites;
+	}
+
+	/** @return false if the manager is shut down and the change must be written right away */
+	private synchronized boolean enqueue(RecordStoreImpl recordStoreImpl, int recordId,
+										 boolean deleted, int size) {
+		if (shutdown) {
+			return false;
+		}
+		LinkedHashMap<Integer, PendingChange> changes = pending.get(recordStoreImpl);
+		if (changes == null) {
+			changes = new LinkedHashMap<>();
+			pending.put(recordStoreImpl, changes);
+		}
+		PendingChange change = changes.get(recordId);
+		if (change == null) {
+			change = new PendingChange();
+			changes.put(recordId, change);
+		} else {
+			pendingBytes -= change.size;
+			coalescedWrites++;
+		}
+		change.deleted = deleted;
+		change.size = size;
+		pendingBytes += size;
+		return true;
+	}
+
+	private void flush(RecordStoreImpl recordStoreImpl) {
+		synchronized (flushLock) {
+			LinkedHashMap<Integer, PendingChange> changes;
+			synchronized (this) {
+				changes = pending.remove(recordStoreImpl);
+				if (changes == null) {
+					return;
+				}
+				for (PendingChange change : changes.values()) {
+					pendingBytes -= change.size;
+				}
+			}
+			long start = System.nanoTime();
+			for (Map.Entry<Integer, PendingChange> entry : changes.entrySet()) {
+				int recordId = entry.getKey();
+				try {
+					if (entry.getValue().deleted) {
+						delegate.deleteRecord(recordStoreImpl, recordId);
+					} else {
+						delegate.saveRecord(recordStoreImpl, recordId);
+					}
+				} catch (RecordStoreException e) {
+					Log.e(TAG, "flush: ERROR writing record " + recordId, e);
+				}
+			}
+			long latency = (System.nanoTime() - start) / 1000000;
+			synchronized (this) {
+				flushCount++;
+				lastFlushLatency = latency;
+				totalFlushLatency += latency;
+				if (latency > maxFlushLatency) {
+					maxFlushLatency = latency;
+				}
+			}
+		}
+	}
+
+	private static class PendingChange {
+		boolean deleted;
+		int size;
+	}
+}
@@ -45,6 +45,21 @@ public class DataImpl implements Data {
 		this.timestamps = timestamps;
 	}
 
+	public void setDoubleValues(double[] doubleValues, long[] timestamps) {
+		this.doubleValues = doubleValues;
+		this.timestamps = timestamps;
+	}
+
+	public void setIntValues(int[] intValues, long[] timestamps) {
+		this.intValues = intValues;
+		this.timestamps = timestamps;
+	}
+
+	public void setObjectValues(Object[] objectValues, long[] timestamps) {
+		this.objectValues = objectValues;
+		this.timestamps = timestamps;
+	}
+
 	@Override
 	public ChannelInfo getChannelInfo() {
 		return channelInfo;
@@ -21,22 +21,43 @@ package javax.microedition.shell;
 import android.util.Log;
 
 import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.enums.CompressionMethod;
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 
 import dalvik.system.DexClassLoader;
 import ru.playsoftware.j2meloader.BuildConfig;
 import ru.playsoftware.j2meloader.config.Config;
 import ru.playsoftware.j2meloader.util.FileUtils;
 import ru.playsoftware.j2meloader.util.IOUtils;
+import ru.playsoftware.j2meloader.util.ZipUtils;
 import ru.woesss.util.zip.ZipFile;
 
 public class AppClassLoader extends DexClassLoader {
 	private static final String TAG = AppClassLoader.class.getName();
+	private static final int RESOURCE_CACHE_SIZE = 4 * 1024 * 1024;
+
+	/** Decoded resources by normalized name, in access order, limited by {@link #RESOURCE_CACHE_SIZE} */
+	private static final LinkedHashMap<String, byte[]> resourceCache = new LinkedHashMap<>(64, 0.75f, true);
+	private static final HashMap<String, FileHeader> fileHeaders = new HashMap<>();
+	private static final HashMap<String, FileHeader> fileHeadersIgnoreCase = new HashMap<>();
+	/** Whole resource jar mapped into memory, stored entries are served as its slices */
+	private static ByteBuffer resourceBuffer;
+	private static int resourceCacheSize;
+	private static int resourceCacheHits;
+	private static int resourceCacheMisses;
 
 	private static AppClassLoader instance;
 	private static ZipFile zipFile;
@@ -52,6 +73,67 @@ public class AppClassLoader extends DexClassLoader {
 		setDataDir(appDir);
 		File jar = new File(appDir, Config.MIDLET_RES_FILE);
 		zipFile = jar.exists() ? new ZipFile(jar) : null;
+		synchronized (resourceCache) {
+			resourceCache.clear();
+			resourceCacheSize = 0;
+			resourceCacheHits = 0;
+			resourceCacheMisses = 0;
+			fileHeaders.clear();
+			fileHeadersIgnoreCase.clear();
+			resourceBuffer = null;
+			if (zipFile != null && indexFileHeaders()) {
+				resourceBuffer = mapFile(jar);
+			}
+		}
+	}
+
+	/**
+	 * Builds lookup maps with the same matching rules as {@link ZipFile#getFileHeader(String)}
+	 *
+	 * @return true if the jar contains stored (uncompressed) entries
+	 */
+	private static boolean indexFileHeaders() {
+		boolean hasStored = false;
+		try {
+			for (FileHeader fh : zipFile.getFileHeaders()) {
+				String name = fh.getFileName();
+				if (name == null || name.trim().isEmpty()) {
+					continue;
+				}
+				if (isStored(fh)) {
+					hasStored = true;
+				}
+				if (!fileHeaders.containsKey(name)) {
+					fileHeaders.put(name, fh);
+				}
+				String key = name.toLowerCase(Locale.ROOT);
+				if (!fileHeadersIgnoreCase.containsKey(key)) {
+					fileHeadersIgnoreCase.put(key, fh);
+				}
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "indexFileHeaders: ", e);
+		}
+		return hasStored;
+	}
+
+	private static boolean isStored(FileHeader fh) {
+		return fh.getCompressionMethod() == CompressionMethod.STORE
+				&& !fh.isEncrypted() && !fh.isDirectory() && fh.getCompressedSize() > 0;
+	}
+
+	private static ByteBuffer mapFile(File file) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+			 FileChannel channel = raf.getChannel()) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				return null;
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+		} catch (IOException e) {
+			Log.w(TAG, "mapFile: can't map " + file, e);
+			return null;
+		}
 	}
 
 	public static void setDataDir(File appDir) {
@@ -64,10 +146,7 @@ public class AppClassLoader extends DexClassLoader {
 			Log.w(TAG, "Can't load res on empty path");
 			return null;
 		}
-		// Add support for Siemens file path
-		String normName = resName.replace('\\', '/');
-		// Remove double slashes
-		normName = normName.replaceAll("//+", "/");
+		String normName = normalizePath(resName);
 		if (normName.charAt(0) != '/' && resClass != null && resClass.getPackage() != null) {
 			String className = resClass.getPackage().getName().replace('.', '/');
 			normName = className + "/" + normName;
@@ -76,6 +155,10 @@ public class AppClassLoader extends DexClassLoader {
 		if (normName.charAt(0) == '/') {
 			normName = normName.substring(1);
 		}
+		ByteBuffer buffer = getStoredResource(normName);
+		if (buffer != null) {
+			return new ByteBufferInputStream(buffer);
+		}
 		byte[] data = getResourceBytes(normName);
 		if (data == null) {
 			Log.w(TAG, "Can't load res: " + resName);
@@ -93,20 +176,69 @@ public class AppClassLoader extends DexClassLoader {
 			Log.w(TAG, "Can't load res on empty path");
 			return null;
 		}
-		// Add support for Siemens file path
-		String normName = resName.replace('\\', '/');
-		// Remove double slashes
-		normName = normName.replaceAll("//+", "/");
+		String normName = normalizePath(resName);
 		// Remove leading slash
 		if (normName.charAt(0) == '/') {
 			normName = normName.substring(1);
 		}
+		ByteBuffer buffer = getStoredResource(normName);
+		if (buffer != null) {
+			byte[] data = new byte[buffer.remaining()];
+			buffer.get(data);
+			return data;
+		}
 		byte[] data = getResourceBytes(normName);
 		if (data == null) {
 			Log.w(TAG, "Can't load res: " + resName);
 			return null;
 		}
-		return data;
+		// cached array is shared with streams, callers get own copy
+		return data.clone();
+	}
+
+	/**
+	 * Replaces Siemens-style backslashes with slashes and collapses repeated slashes
+	 */
+	static String normalizePath(String path) {
+		int length = path.length();
+		int i = 0;
+		char prev = 0;
+		for (; i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '\\' || c == '/' && prev == '/') {
+				break;
+			}
+			prev = c;
+		}
+		if (i == length) {
+			return path;
+		}
+		StringBuilder sb = new StringBuilder(length);
+		sb.append(path, 0, i);
+		for (; i < length; i++) {
+			char c = path.charAt(i);
+			if (c == '\\') {
+				c = '/';
+			}
+			if (c == '/' && prev == '/') {
+				continue;
+			}
+			sb.append(c);
+			prev = c;
+		}
+		return sb.toString();
+	}
+
+	public static int getResourceCacheHits() {
+		synchronized (resourceCache) {
+			return resourceCacheHits;
+		}
+	}
+
+	public static int getResourceCacheMisses() {
+		synchronized (resourceCache) {
+			return resourceCacheMisses;
+		}
 	}
 
 	private static byte[] getResourceBytes(String name) {
@@ -114,6 +246,37 @@ public class AppClassLoader extends DexClassLoader {
 			Log.w(TAG, "Can't load res on empty path");
 			return null;
 		}
+		synchronized (resourceCache) {
+			byte[] data = resourceCache.get(name);
+			if (data != null) {
+				resourceCacheHits++;
+				return data;
+			}
+			resourceCacheMisses++;
+		}
+		byte[] data = loadResourceBytes(name);
+		if (data != null && data.length <= RESOURCE_CACHE_SIZE / 4) {
+			synchronized (resourceCache) {
+				byte[] old = resourceCache.put(name, data);
+				if (old != null) {
+					resourceCacheSize -= old.length;
+				}
+				resourceCacheSize += data.length;
+				trimResourceCache();
+			}
+		}
+		return data;
+	}
+
+	private static void trimResourceCache() {
+		Iterator<byte[]> iterator = resourceCache.values().iterator();
+		while (resourceCacheSize > RESOURCE_CACHE_SIZE && iterator.hasNext()) {
+			resourceCacheSize -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	private static byte[] loadResourceBytes(String name) {
 		if (!BuildConfig.FULL_EMULATOR) {
 			try {
 				InputStream stream = AppClassLoader.class.getClassLoader().getResourceAsStream(name);
@@ -138,7 +301,7 @@ public class AppClassLoader extends DexClassLoader {
 		}
 		DataInputStream dis = null;
 		try {
-			FileHeader header = zipFile.getFileHeader(name);
+			FileHeader header = getFileHeader(name);
 			if (header == null) {
 				return null;
 			}
@@ -160,7 +323,87 @@ public class AppClassLoader extends DexClassLoader {
 		return null;
 	}
 
+	/**
+	 * Returns slice of the mapped jar for a stored entry, or null if the entry must be inflated
+	 */
+	private static ByteBuffer getStoredResource(String name) {
+		ByteBuffer mapped = resourceBuffer;
+		if (mapped == null || !BuildConfig.FULL_EMULATOR || name.equals("")) {
+			return null;
+		}
+		FileHeader header = getFileHeader(name);
+		if (header == null || !isStored(header)) {
+			return null;
+		}
+		return ZipUtils.getStoredData(mapped, header);
+	}
+
+	private static FileHeader getFileHeader(String name) {
+		synchronized (resourceCache) {
+			FileHeader header = fileHeaders.get(name);
+			if (header == null) {
+				header = fileHeadersIgnoreCase.get(name.toLowerCase(Locale.ROOT));
+			}
+			return header;
+		}
+	}
+
 	public static AppClassLoader getInstance() {
 		return instance;
 	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+			buffer.mark();
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			int remaining = buffer.remaining();
+			if (remaining == 0) {
+				return -1;
+			}
+			len = Math.min(len, remaining);
+			buffer.get(b, off, len);
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			int skip = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skip);
+			return skip;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readLimit) {
+			buffer.mark();
+		}
+
+		@Override
+		public synchronized void reset() {
+			buffer.reset();
+		}
+	}
 }
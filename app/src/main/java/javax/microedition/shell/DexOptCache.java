@@ -0,0 +1,148 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.shell;
+
+import static android.os.Build.VERSION.SDK_INT;
+import static android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import net.lingala.zip4j.model.FileHeader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import kotlin.io.ConstantsKt;
+import kotlin.io.FilesKt;
+import ru.playsoftware.j2meloader.config.Config;
+import ru.playsoftware.j2meloader.util.FileUtils;
+import ru.woesss.util.zip.ZipFile;
+
+/**
+ * Per-app directory for optimized dex artifacts, kept between launches.
+ * <p>
+ * The directory is reused while the size, the modification time and the checksum
+ * of the MIDlet dex are the same as at the time it was filled, so the runtime
+ * does not verify and optimize the dex again on every cold start.
+ * The installer drops it with {@link #invalidate(Context, String)}.
+ */
+public final class DexOptCache {
+	private static final String TAG = DexOptCache.class.getSimpleName();
+	private static final String STAMP_FILE = "stamp";
+
+	private final File dir;
+	private boolean hit;
+
+	DexOptCache(Context context, String appDirName) {
+		dir = new File(getRootDir(context), appDirName);
+	}
+
+	/**
+	 * Prepares cache directory for the dex
+	 *
+	 * @return dex file to load, it is a read-only copy in the cache directory on Android 14+
+	 */
+	File prepare(File dexSource) throws IOException {
+		File root = dir.getParentFile();
+		if (root != null && root.isDirectory()) {
+			// files of the old layout, where the whole directory was cleared on each launch
+			File[] files = root.listFiles(File::isFile);
+			if (files != null) {
+				for (File file : files) {
+					//noinspection ResultOfMethodCallIgnored
+					file.delete();
+				}
+			}
+		}
+		String key = computeKey(dexSource);
+		File stamp = new File(dir, STAMP_FILE);
+		File dexCopy = new File(dir, dexSource.getName());
+		hit = stamp.isFile() && key.equals(FileUtils.getText(stamp.getPath()))
+				&& (SDK_INT < UPSIDE_DOWN_CAKE || dexCopy.isFile());
+		if (hit) {
+			Log.d(TAG, "prepare: hit " + dir.getName());
+			return SDK_INT >= UPSIDE_DOWN_CAKE ? dexCopy : dexSource;
+		}
+		Log.d(TAG, "prepare: miss " + dir.getName());
+		if (dir.exists()) {
+			FileUtils.clearDirectory(dir);
+		} else if (!dir.mkdirs()) {
+			throw new IOException("Can't create directory: [" + dir + ']');
+		}
+		File dex = dexSource;
+		if (SDK_INT >= UPSIDE_DOWN_CAKE) {
+			FilesKt.copyTo(dexSource, dexCopy, true, ConstantsKt.DEFAULT_BUFFER_SIZE);
+			if (!dexCopy.setReadOnly()) {
+				throw new IOException("Can't set readOnly flag for dex cache file");
+			}
+			dex = dexCopy;
+		}
+		FilesKt.writeText(stamp, key, StandardCharsets.UTF_8);
+		return dex;
+	}
+
+	File getDir() {
+		return dir;
+	}
+
+	/** @return true if the last {@link #prepare(File)} reused artifacts of a previous launch */
+	boolean isHit() {
+		return hit;
+	}
+
+	/** Deletes optimized artifacts of the app, must be called when the app dex is replaced or deleted */
+	public static void invalidate(Context context, String appDirName) {
+		File dir = new File(getRootDir(context), appDirName);
+		if (dir.exists()) {
+			FileUtils.deleteDirectory(dir);
+		}
+	}
+
+	private static File getRootDir(Context context) {
+		return new File(ContextCompat.getCodeCacheDir(context), Config.DEX_OPT_CACHE_DIR);
+	}
+
+	private static String computeKey(File dex) throws IOException {
+		long checksum;
+		if (dex.getName().endsWith(".zip")) {
+			// checksum of the archived dex is stored in the zip directory
+			FileHeader header = new ZipFile(dex).getFileHeader("classes.dex");
+			if (header == null) {
+				throw new IOException("No classes.dex in " + dex);
+			}
+			checksum = header.getCrc();
+		} else {
+			CRC32 crc = new CRC32();
+			try (InputStream is = new FileInputStream(dex)) {
+				byte[] buf = new byte[ConstantsKt.DEFAULT_BUFFER_SIZE];
+				int read;
+				while ((read = is.read(buf)) != -1) {
+					crc.update(buf, 0, read);
+				}
+			}
+			checksum = crc.getValue();
+		}
+		return dex.length() + ":" + dex.lastModified() + ":" + Long.toHexString(checksum);
+	}
+}
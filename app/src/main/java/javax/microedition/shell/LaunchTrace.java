@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.shell;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+/** Logs the time from the MIDlet launch to its first painted frame */
+public final class LaunchTrace {
+	private static final String TAG = "LaunchTrace";
+
+	private static long start;
+	private static volatile boolean painted = true;
+
+	private LaunchTrace() {
+	}
+
+	static void start() {
+		start = SystemClock.elapsedRealtime();
+		painted = false;
+		Log.i(TAG, "launch");
+	}
+
+	static void mark(String event) {
+		if (!painted) {
+			Log.i(TAG, event + " at " + (SystemClock.elapsedRealtime() - start) + " ms");
+		}
+	}
+
+	/** Called after each paint, logs only the first one after launch */
+	public static void firstPaint() {
+		if (painted) {
+			return;
+		}
+		painted = true;
+		Log.i(TAG, "first paint at " + (SystemClock.elapsedRealtime() - start) + " ms");
+	}
+}
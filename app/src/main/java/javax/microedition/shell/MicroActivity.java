@@ -76,6 +76,7 @@ import javax.microedition.lcdui.ViewHandler;
 import javax.microedition.lcdui.event.SimpleEvent;
 import javax.microedition.lcdui.keyboard.VirtualKeyboard;
 import javax.microedition.lcdui.skin.SkinLayer;
+import javax.microedition.rms.RecordStore;
 import javax.microedition.util.ContextHolder;
 
 import io.reactivex.SingleObserver;
@@ -107,6 +108,7 @@ public class MicroActivity extends AppCompatActivity {
 
 	@Override
 	public void onCreate(Bundle savedInstanceState) {
+		LaunchTrace.start();
 		lockNightMode();
 		super.onCreate(savedInstanceState);
 		ContextHolder.setCurrentActivity(this);
@@ -204,6 +206,7 @@ public class MicroActivity extends AppCompatActivity {
 		visible = false;
 		hideSoftInput();
 		MidletThread.pauseApp();
+		RecordStore.flushPendingChanges(false);
 		super.onPause();
 	}
 
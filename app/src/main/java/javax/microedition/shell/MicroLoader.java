@@ -17,21 +17,19 @@
 
 package javax.microedition.shell;
 
-import static android.os.Build.VERSION.SDK_INT;
-import static android.os.Build.VERSION_CODES.UPSIDE_DOWN_CAKE;
-
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.os.Environment;
 import android.os.StrictMode;
+import android.os.SystemClock;
 import android.util.Log;
 import android.util.SparseIntArray;
 import android.view.KeyEvent;
 
-import androidx.core.content.ContextCompat;
-
 import org.acra.ACRA;
 import org.acra.ErrorReporter;
+import org.microemu.cldc.file.FileSystemFileConnection;
+import org.microemu.cldc.socket.SocketPool;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -40,9 +38,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.math.BigInteger;
 import java.nio.charset.Charset;
-import java.security.MessageDigest;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
@@ -60,12 +57,12 @@ import javax.microedition.lcdui.keyboard.VirtualKeyboard;
 import javax.microedition.lcdui.skin.SkinLayer;
 import javax.microedition.m3g.Graphics3D;
 import javax.microedition.midlet.MIDlet;
+import javax.microedition.rms.RecordStore;
 import javax.microedition.util.ContextHolder;
 
 import io.reactivex.SingleObserver;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.schedulers.Schedulers;
-import kotlin.io.ConstantsKt;
 import kotlin.io.FilesKt;
 import ru.playsoftware.j2meloader.BuildConfig;
 import ru.playsoftware.j2meloader.config.Config;
@@ -126,14 +123,21 @@ public class MicroLoader {
 		Descriptor descriptor;
 		if (BuildConfig.FULL_EMULATOR) {
 			descriptor = new Descriptor(new File(appDir, Config.MIDLET_MANIFEST_FILE), false);
-			try {
-				File jar = new File(appDir, Config.MIDLET_RES_FILE);
-				jarSize = Long.toString(jar.length());
-				byte[] bytes = FileUtils.getBytes(jar);
-				byte[] sum = MessageDigest.getInstance("md5").digest(bytes);
-				BigInteger bi = new BigInteger(1, sum);
-				jarHash = bi.toString(16);
-			} catch (Throwable ignored) {
+			File hashFile = new File(appDir, Config.MIDLET_JAR_HASH_FILE);
+			String[] hash = hashFile.isFile() ? FileUtils.getText(hashFile.getPath()).split("\n") : null;
+			if (hash != null && hash.length == 2) {
+				jarHash = hash[0];
+				jarSize = hash[1];
+			} else {
+				// installed by an older version, res.jar is a copy of the original jar
+				try {
+					File jar = new File(appDir, Config.MIDLET_RES_FILE);
+					jarSize = Long.toString(jar.length());
+					jarHash = FileUtils.getMd5(jar);
+					FilesKt.writeText(hashFile, jarHash + '\n' + jarSize, StandardCharsets.UTF_8);
+				} catch (Throwable e) {
+					Log.w(TAG, "loadMIDletList: can't compute jar hash", e);
+				}
 			}
 		} else {
 			try (InputStream stream = getClass().getResourceAsStream("/MIDLET-META-INF/MANIFEST.MF")) {
@@ -180,23 +184,13 @@ public class MicroLoader {
 			if (!dexSource.exists()) {
 				dexSource = new File(appDir, Config.MIDLET_DEX_FILE);
 			}
-			File codeCacheDir = ContextCompat.getCodeCacheDir(context);
-			File dexOptDir = new File(codeCacheDir, Config.DEX_OPT_CACHE_DIR);
-			if (dexOptDir.exists()) {
-				FileUtils.clearDirectory(dexOptDir);
-			} else if (!dexOptDir.mkdir()) {
-				throw new IOException("Can't create directory: [" + dexOptDir + ']');
-			}
-			if (SDK_INT >= UPSIDE_DOWN_CAKE) {
-				File dexCache = new File(dexOptDir, appDirName);
-				FilesKt.copyTo(dexSource, dexCache, true, ConstantsKt.DEFAULT_BUFFER_SIZE);
-				if (!dexCache.setReadOnly()) {
-					throw new IOException("Can't set readOnly flag for dex cache file");
-				}
-				dexSource = dexCache;
-			}
+			DexOptCache dexOptCache = new DexOptCache(context, appDirName);
+			dexSource = dexOptCache.prepare(dexSource);
+			long start = SystemClock.elapsedRealtime();
 			ClassLoader loader = new AppClassLoader(dexSource.getAbsolutePath(),
-					dexOptDir.getAbsolutePath(), context.getClassLoader(), appDir);
+					dexOptCache.getDir().getAbsolutePath(), context.getClassLoader(), appDir);
+			LaunchTrace.mark("class loader created in " + (SystemClock.elapsedRealtime() - start)
+					+ " ms, dex-opt cache " + (dexOptCache.isHit() ? "hit" : "miss"));
 			Log.i(TAG, "loadMIDletList main: " + mainClass + " from dex:" + dexSource.getPath());
 			//noinspection unchecked
 			Class<MIDlet> clazz = (Class<MIDlet>) loader.loadClass(mainClass);
@@ -268,6 +262,11 @@ public class MicroLoader {
 
 			Font.applySettings(params);
 
+			RecordStore.applySettings(params);
+			FileSystemFileConnection.applySettings(params);
+			SocketPool.applySettings(params);
+			org.microemu.cldc.http.Connection.applySettings(params);
+
 			KeyMapper.setKeyMapping(params);
 			File sb = new File(workDir + Config.SOUNDBANKS_DIR + params.soundBank);
 			if (sb.exists()) {
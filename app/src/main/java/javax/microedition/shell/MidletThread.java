@@ -26,6 +26,7 @@ import javax.microedition.lcdui.Canvas;
 import javax.microedition.lcdui.Displayable;
 import javax.microedition.midlet.MIDlet;
 import javax.microedition.midlet.MIDletStateChangeException;
+import javax.microedition.rms.RecordStore;
 import javax.microedition.util.ContextHolder;
 
 import androidx.annotation.NonNull;
@@ -68,6 +69,7 @@ public class MidletThread extends HandlerThread implements Handler.Callback {
 		if (instance != null) {
 			instance.state = DESTROYED;
 		}
+		RecordStore.flushPendingChanges(true);
 		MicroActivity activity = ContextHolder.getActivity();
 		if (activity != null) {
 			activity.finish();
@@ -124,6 +126,7 @@ public class MidletThread extends HandlerThread implements Handler.Callback {
 				try {
 					mMidlet = microLoader.loadMIDlet(this.mainClass);
 					state = PAUSED;
+					LaunchTrace.mark("MIDlet created");
 				} catch (Throwable t) {
 					throw new RuntimeException("Init midlet failed", t);
 				}
@@ -135,6 +138,7 @@ public class MidletThread extends HandlerThread implements Handler.Callback {
 				try {
 					state = STARTED;
 					mMidlet.startApp();
+					LaunchTrace.mark("startApp returned");
 				} catch (MIDletStateChangeException e) {
 					state = PAUSED;
 					Log.w(TAG, "Midlet doesn't want to start!", e);
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.util;
+
+/**
+ * Histogram of non-negative values with buckets of equal width,
+ * values above the last bucket are counted in it.
+ * <p>
+ * Values are recorded from one thread without locking,
+ * so reading from other threads gives approximate results.
+ */
+public class Histogram {
+	private final int bucketWidth;
+	private final long[] buckets;
+	private long count;
+	private long max;
+
+	public Histogram(int bucketWidth, int bucketCount) {
+		this.bucketWidth = bucketWidth;
+		buckets = new long[bucketCount];
+	}
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		long index = value / bucketWidth;
+		buckets[index < buckets.length ? (int) index : buckets.length - 1]++;
+		count++;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @param percent percentile in range 0..100
+	 * @return upper bound of the bucket containing the percentile,
+	 * or the maximum value if it is in the last bucket
+	 */
+	public long getPercentile(double percent) {
+		long count = this.count;
+		if (count == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(count * percent / 100.0);
+		long sum = 0;
+		int last = buckets.length - 1;
+		for (int i = 0; i < last; i++) {
+			sum += buckets[i];
+			if (sum >= threshold) {
+				return Math.min((long) (i + 1) * bucketWidth, max);
+			}
+		}
+		return max;
+	}
+
+	public void reset() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = 0;
+		}
+		count = 0;
+		max = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count
+				+ " p50=" + getPercentile(50)
+				+ " p95=" + getPercentile(95)
+				+ " p99=" + getPercentile(99)
+				+ " max=" + max;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered input stream of a file channel, with mark/reset support at any position of the file.
+ * <p>
+ * In mapped mode the whole file is mapped to memory and read without system calls.
+ * Reading a mapping beyond the end of a truncated file crashes the process,
+ * so the stream must be switched to buffered reads with {@link #unmap()} before truncation.
+ */
+class FileChannelInputStream extends InputStream {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final FileChannel channel;
+	private boolean mapped;
+	private ByteBuffer buffer;
+	/** Position in the file of the buffer start */
+	private long bufferStart;
+	private long mark;
+	private boolean closed;
+
+	FileChannelInputStream(FileChannel channel, boolean mapped) throws IOException {
+		this.channel = channel;
+		this.mapped = mapped;
+		if (mapped) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} else {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			buffer.limit(0);
+		}
+	}
+
+	@Override
+	public synchronized int read() throws IOException {
+		if (!buffer.hasRemaining() && fill() <= 0) {
+			return -1;
+		}
+		return buffer.get() & 0xff;
+	}
+
+	@Override
+	public synchronized int read(byte[] b, int off, int len) throws IOException {
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		} else if (len == 0) {
+			return 0;
+		}
+		int remaining = buffer.remaining();
+		if (remaining == 0) {
+			if (!mapped && len >= BUFFER_SIZE) {
+				// large reads go right to the array
+				ensureOpen();
+				long position = bufferStart + buffer.position();
+				buffer.limit(0);
+				bufferStart = position;
+				int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+				if (read > 0) {
+					bufferStart += read;
+				}
+				return read;
+			}
+			remaining = fill();
+			if (remaining <= 0) {
+				return -1;
+			}
+		}
+		int n = Math.min(len, remaining);
+		buffer.get(b, off, n);
+		return n;
+	}
+
+	@Override
+	public synchronized long skip(long n) throws IOException {
+		ensureOpen();
+		if (n <= 0) {
+			return 0;
+		}
+		long position = bufferStart + buffer.position();
+		long skipped = Math.min(n, channel.size() - position);
+		if (skipped <= 0) {
+			return 0;
+		}
+		seek(position + skipped);
+		return skipped;
+	}
+
+	@Override
+	public synchronized int available() throws IOException {
+		ensureOpen();
+		long available = channel.size() - (bufferStart + buffer.position());
+		return (int) Math.max(0, Math.min(available, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public boolean markSupported() {
+		return true;
+	}
+
+	/** The file can be repositioned freely, so readlimit is not used */
+	@Override
+	public synchronized void mark(int readlimit) {
+		mark = bufferStart + buffer.position();
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		ensureOpen();
+		seek(mark);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		channel.close();
+	}
+
+	/** Continues reading from the same position through the buffer, the mapping isn't touched again */
+	synchronized void unmap() {
+		if (!mapped) {
+			return;
+		}
+		mapped = false;
+		long position = bufferStart + buffer.position();
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		buffer.limit(0);
+		bufferStart = position;
+	}
+
+	private void seek(long position) {
+		long offset = position - bufferStart;
+		if (offset >= 0 && offset <= buffer.limit()) {
+			buffer.position((int) offset);
+		} else {
+			bufferStart = position;
+			buffer.limit(0);
+		}
+	}
+
+	/** @return number of bytes in the buffer after refill, -1 at the end of the file */
+	private int fill() throws IOException {
+		ensureOpen();
+		if (mapped) {
+			return -1;
+		}
+		long position = bufferStart + buffer.position();
+		buffer.clear();
+		bufferStart = position;
+		int read = channel.read(buffer, position);
+		buffer.flip();
+		return read;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+}
@@ -50,16 +50,22 @@ import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 
 import javax.microedition.io.file.ConnectionClosedException;
 import javax.microedition.io.file.FileConnection;
 import javax.microedition.util.ContextHolder;
 
+import ru.playsoftware.j2meloader.config.ProfileModel;
+
 public class FileSystemFileConnection implements FileConnection {
 	private static final String TAG = FileSystemFileConnection.class.getSimpleName();
 
@@ -73,6 +79,10 @@ public class FileSystemFileConnection implements FileConnection {
 			"fs/MyStuff/"
 	);
 	private static final String[] FS_ROOTS = getFileSystemRoots();
+	/** Files of at least this size in bytes are read through memory mapping, zero disables it */
+	private static volatile long mmapThreshold;
+	/** Open mapped input streams of all connections with their files */
+	private static final Map<FileChannelInputStream, File> mappedStreams = new WeakHashMap<>();
 
 	private final String host;
 	private final String root;
@@ -120,6 +130,10 @@ public class FileSystemFileConnection implements FileConnection {
 		}
 	}
 
+	public static void applySettings(ProfileModel params) {
+		mmapThreshold = params.fileMmapThreshold * 1024L;
+	}
+
 	private String getFsRoot() {
 		int idx = FC_ROOTS.indexOf(root);
 		return FS_ROOTS[idx == -1 ? 0 : idx] + DIR_SEP_STR;
@@ -232,6 +246,7 @@ public class FileSystemFileConnection implements FileConnection {
 	public long fileSize() throws IOException {
 		throwClosed();
 		if (!file.isFile()) throw new IOException();
+		flushOutputStream();
 		return file.length();
 	}
 
@@ -371,13 +386,32 @@ public class FileSystemFileConnection implements FileConnection {
 		}
 		// Trying to open more than one InputStream or more than one
 		// OutputStream from a StreamConnection causes an IOException.
-		this.openedInputStream = new FileInputStream(file) {
-			@Override
-			public void close() throws IOException {
-				FileSystemFileConnection.this.openedInputStream = null;
-				super.close();
+		FileChannel channel = new FileInputStream(file).getChannel();
+		long threshold = mmapThreshold;
+		try {
+			boolean map = threshold > 0 && channel.size() >= threshold;
+			FileChannelInputStream stream = new FileChannelInputStream(channel, map) {
+				@Override
+				public void close() throws IOException {
+					FileSystemFileConnection.this.openedInputStream = null;
+					if (map) {
+						synchronized (mappedStreams) {
+							mappedStreams.remove(this);
+						}
+					}
+					super.close();
+				}
+			};
+			if (map) {
+				synchronized (mappedStreams) {
+					mappedStreams.put(stream, file);
+				}
 			}
-		};
+			this.openedInputStream = stream;
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
 		return this.openedInputStream;
 	}
 
@@ -398,7 +432,9 @@ public class FileSystemFileConnection implements FileConnection {
 		}
 
 		// TODO: 14.12.2020 unclear: should the existing file be truncated if the write hasn't reached the end
-		this.openedOutputStream = new FileOutputStream(file, false) {
+		unmapStreams(file);
+		FileChannel channel = new FileOutputStream(file, false).getChannel();
+		this.openedOutputStream = new FileChannelOutputStream(channel) {
 			@Override
 			public void close() throws IOException {
 				FileSystemFileConnection.this.openedOutputStream = null;
@@ -425,15 +461,16 @@ public class FileSystemFileConnection implements FileConnection {
 		}
 		// we cannot truncate the file here since it could already have content
 		// which should be overridden instead of wiped.
-		RandomAccessFile raf = new RandomAccessFile(file, "rw");
-		raf.seek(byteOffset);
-		return new FileOutputStream(raf.getFD()) {
+		FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		channel.position(byteOffset);
+		this.openedOutputStream = new FileChannelOutputStream(channel) {
 			@Override
 			public void close() throws IOException {
 				FileSystemFileConnection.this.openedOutputStream = null;
 				super.close();
 			}
 		};
+		return this.openedOutputStream;
 	}
 
 	@Override
@@ -516,6 +553,9 @@ public class FileSystemFileConnection implements FileConnection {
 	@Override
 	public void truncate(final long byteOffset) throws IOException {
 		throwClosed();
+		// buffered data must not be written after the truncation
+		flushOutputStream();
+		unmapStreams(file);
 		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
 			raf.setLength(byteOffset);
 		}
@@ -536,6 +576,28 @@ public class FileSystemFileConnection implements FileConnection {
 			locationClosedFrom = new Throwable();
 			locationClosedFrom.fillInStackTrace();
 			this.file = null;
+			// opened streams stay usable, buffered data is written now as the MIDlet may not close them
+			flushOutputStream();
+		}
+	}
+
+	/** Switches mapped streams of the file to buffered reads before it is truncated */
+	private static void unmapStreams(File file) {
+		synchronized (mappedStreams) {
+			for (Iterator<Map.Entry<FileChannelInputStream, File>> it = mappedStreams.entrySet().iterator(); it.hasNext(); ) {
+				Map.Entry<FileChannelInputStream, File> entry = it.next();
+				if (entry.getValue().equals(file)) {
+					entry.getKey().unmap();
+					it.remove();
+				}
+			}
+		}
+	}
+
+	private void flushOutputStream() throws IOException {
+		OutputStream out = openedOutputStream;
+		if (out != null) {
+			out.flush();
 		}
 	}
 
@@ -24,10 +24,15 @@
 
 package org.microemu.cldc.http;
 
+import android.net.http.HttpResponseCache;
+import android.util.Log;
+
 import org.microemu.microedition.io.ConnectionImplementation;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -37,8 +42,13 @@ import java.net.URL;
 import java.net.URLConnection;
 
 import javax.microedition.io.HttpConnection;
+import javax.microedition.shell.AppClassLoader;
+
+import ru.playsoftware.j2meloader.config.ProfileModel;
 
 public class Connection implements HttpConnection, ConnectionImplementation {
+	private static final String TAG = Connection.class.getSimpleName();
+	private static final String CACHE_DIR = ".http";
 
 	protected URLConnection cn;
 	protected URLConnection cnOut;
@@ -47,6 +57,11 @@ public class Connection implements HttpConnection, ConnectionImplementation {
 
 	protected static boolean allowNetworkConnection = true;
 
+	private static boolean cacheInstalled;
+	private static long cacheSize = 4 * 1024 * 1024;
+
+	private ResponseInputStream responseStream;
+
 	@Override
 	public javax.microedition.io.Connection openConnection(String name, int mode, boolean timeouts) throws IOException {
 		if (!isAllowNetworkConnection()) {
@@ -58,6 +73,7 @@ public class Connection implements HttpConnection, ConnectionImplementation {
 		} catch (MalformedURLException ex) {
 			throw new IOException(ex.toString());
 		}
+		installResponseCache();
 		cn = url.openConnection();
 		// Add encoding info to the header
 		cn.setRequestProperty("Accept-Encoding", "identity");
@@ -75,16 +91,15 @@ public class Connection implements HttpConnection, ConnectionImplementation {
 			return;
 		}
 
-		if (cn instanceof HttpURLConnection) {
-			((HttpURLConnection) cn).disconnect();
-		}
-
-		if (cnOut instanceof HttpURLConnection) {
-			((HttpURLConnection) cnOut).disconnect();
+		// opened stream stays readable after close, it releases the connection when the body is read
+		if (responseStream == null || !responseStream.disconnectOnClose()) {
+			disconnect(cn);
 		}
+		disconnect(cnOut);
 
 		cn = null;
 		cnOut = null;
+		responseStream = null;
 	}
 
 	@Override
@@ -350,16 +365,20 @@ public class Connection implements HttpConnection, ConnectionImplementation {
 
 		connected = true;
 
+		InputStream in;
 		try {
-			return cn.getInputStream();
+			in = cn.getInputStream();
 		} catch (IOException ex) {
 			if (cn instanceof HttpURLConnection) {
 				InputStream errorStream = ((HttpURLConnection) cn).getErrorStream();
 				if (errorStream == null) throw ex;
-				return errorStream;
+				in = errorStream;
+			} else {
+				throw ex;
 			}
-			throw ex;
 		}
+		responseStream = new ResponseInputStream(in, cn);
+		return responseStream;
 	}
 
 	@Override
@@ -428,4 +447,153 @@ public class Connection implements HttpConnection, ConnectionImplementation {
 		Connection.allowNetworkConnection = allowNetworkConnection;
 	}
 
+	/** The cache size takes effect only before the first connection is opened */
+	public static synchronized void applySettings(ProfileModel params) {
+		cacheSize = params.httpCacheSize * 1024L;
+	}
+
+	/**
+	 * Installs the platform disk cache for responses of the MIDlet, it revalidates entries
+	 * by Expires, Last-Modified and ETag headers and evicts least recently used ones.
+	 * The size is set by the profile, 0 disables the cache.
+	 */
+	private static synchronized void installResponseCache() {
+		if (cacheInstalled) {
+			return;
+		}
+		cacheInstalled = true;
+		long size = cacheSize;
+		String dataDir = AppClassLoader.getDataDir();
+		if (size <= 0 || dataDir == null) {
+			return;
+		}
+		try {
+			HttpResponseCache.install(new File(dataDir, CACHE_DIR), size);
+		} catch (IOException e) {
+			Log.w(TAG, "installResponseCache: ", e);
+		}
+	}
+
+	private static void disconnect(URLConnection connection) {
+		if (connection instanceof HttpURLConnection) {
+			((HttpURLConnection) connection).disconnect();
+		}
+	}
+
+	/**
+	 * Response body stream. A fully read body lets the keep-alive socket and the cache entry
+	 * be reused, so after the connection is closed it is disconnected when the body is read
+	 * to the end or the stream is closed, whichever comes first.
+	 */
+	private static class ResponseInputStream extends FilterInputStream {
+		private final URLConnection connection;
+		/** Content length, -1 if it is unknown */
+		private final long length;
+		private long position;
+		private boolean consumed;
+		private boolean closed;
+		private boolean disconnect;
+		private boolean disconnected;
+
+		ResponseInputStream(InputStream in, URLConnection connection) {
+			super(in);
+			this.connection = connection;
+			this.length = connection.getContentLength();
+		}
+
+		/** @return true if the stream disconnects later, false if the connection can be disconnected now */
+		synchronized boolean disconnectOnClose() {
+			disconnect = true;
+			return !closed && !consumed;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (isReleased()) {
+				return -1;
+			}
+			int b = super.read();
+			advance(b == -1 ? -1 : 1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (isReleased()) {
+				return -1;
+			}
+			int read = super.read(b, off, len);
+			advance(read);
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			if (isReleased()) {
+				return 0;
+			}
+			long skipped = super.skip(n);
+			advance(skipped);
+			return skipped;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (isReleased()) {
+				return 0;
+			}
+			return super.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				super.close();
+			} finally {
+				synchronized (this) {
+					closed = true;
+				}
+				disconnectIfNecessary();
+			}
+		}
+
+		/** @param count number of bytes read, -1 at the end of the body */
+		private void advance(long count) {
+			synchronized (this) {
+				if (count < 0) {
+					consumed = true;
+				} else {
+					position += count;
+					if (length >= 0 && position >= length) {
+						consumed = true;
+					}
+				}
+				if (!consumed) {
+					return;
+				}
+			}
+			disconnectIfNecessary();
+		}
+
+		/** The body was read to the end and the connection was released, its stream is closed */
+		private synchronized boolean isReleased() {
+			return consumed && disconnected;
+		}
+
+		private void disconnectIfNecessary() {
+			synchronized (this) {
+				if (!disconnect || disconnected) {
+					return;
+				}
+				disconnected = true;
+			}
+			try {
+				// a closed body releases the socket for reuse, disconnecting before may drop it
+				in.close();
+			} catch (IOException ignored) {
+			}
+			Connection.disconnect(connection);
+		}
+	}
+
 }
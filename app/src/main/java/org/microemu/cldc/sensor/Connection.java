@@ -26,7 +26,7 @@ import com.sonyericsson.accelerometer.AccelerometerSensorConnection;
 import org.microemu.microedition.io.ConnectionImplementation;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InterruptedIOException;
 
 import javax.microedition.io.ConnectionNotFoundException;
 import javax.microedition.sensor.AndroidSensorManager;
@@ -34,24 +34,25 @@ import javax.microedition.sensor.Channel;
 import javax.microedition.sensor.ChannelImpl;
 import javax.microedition.sensor.ChannelInfo;
 import javax.microedition.sensor.Data;
-import javax.microedition.sensor.DataImpl;
 import javax.microedition.sensor.DataListener;
 import javax.microedition.sensor.SensorInfo;
 import javax.microedition.sensor.SensorManager;
 import javax.microedition.util.ContextHolder;
 
 public class Connection extends AccelerometerSensorConnection implements ConnectionImplementation, SensorEventListener {
+	/** Limits of the sampling period in microseconds */
+	private static final long MIN_SAMPLING_PERIOD = 5000;
+	private static final long MAX_SAMPLING_PERIOD = 200000;
 
 	private SensorInfo sensorInfo;
 	private ChannelInfo[] channelInfos;
 	private DataListener listener;
-	private int bufferSize;
-	private int eventsNum;
 	private int state;
 	private int dataLength;
-	private Data[] data;
 	private Channel[] channels;
-	private long[] timestamps;
+	private SampleBuffer samples;
+	/** Batch collected for a getData() call */
+	private Data[] result;
 
 	private android.hardware.SensorManager sensorManager;
 	private Sensor sensor;
@@ -65,13 +66,10 @@ public class Connection extends AccelerometerSensorConnection implements Connect
 		sensorInfo = sensorInfos[0];
 		channelInfos = sensorInfo.getChannelInfos();
 		dataLength = sensorInfo.getChannelInfos().length;
-		data = new Data[dataLength];
 		channels = new Channel[dataLength];
 		for (int i = 0; i < dataLength; i++) {
-			data[i] = new DataImpl(channelInfos[i]);
 			channels[i] = new ChannelImpl(channelInfos[i]);
 		}
-		timestamps = new long[dataLength];
 
 		sensorManager = (android.hardware.SensorManager) ContextHolder.getAppContext().getSystemService(Context.SENSOR_SERVICE);
 		int type = AndroidSensorManager.getSensorType(sensorInfo.getQuantity());
@@ -104,6 +102,31 @@ public class Connection extends AccelerometerSensorConnection implements Connect
 		if (state == STATE_LISTENING) {
 			throw new IllegalStateException();
 		}
+		checkBuffering(bufferSize, bufferingPeriod);
+		if (bufferSize < 1) {
+			bufferSize = sensorInfo.getMaxBufferSize();
+		}
+		Data[] data;
+		try {
+			synchronized (this) {
+				result = null;
+				if (!startSampling(bufferSize, bufferingPeriod)) {
+					throw new IOException("Sensor is not available");
+				}
+				while (result == null && state != STATE_CLOSED) {
+					wait();
+				}
+				data = result;
+				result = null;
+			}
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} finally {
+			stopSampling();
+		}
+		if (data == null) {
+			throw new IOException("Connection closed");
+		}
 		return data;
 	}
 
@@ -132,9 +155,11 @@ public class Connection extends AccelerometerSensorConnection implements Connect
 		if (state == STATE_CLOSED) {
 			throw new IllegalStateException();
 		}
-		listener = null;
-		sensorManager.unregisterListener(this);
-		state = STATE_OPENED;
+		stopSampling();
+		synchronized (this) {
+			listener = null;
+			state = STATE_OPENED;
+		}
 	}
 
 	@Override
@@ -147,47 +172,81 @@ public class Connection extends AccelerometerSensorConnection implements Connect
 		if (state == STATE_CLOSED) {
 			throw new IllegalStateException();
 		}
-		if ((bufferSize < 1 && bufferingPeriod < 1) || bufferSize > sensorInfo.getMaxBufferSize()) {
-			throw new IllegalArgumentException();
-		}
+		checkBuffering(bufferSize, bufferingPeriod);
 		if (bufferSize < 1) {
 			bufferSize = sensorInfo.getMaxBufferSize();
 		}
-		this.listener = listener;
-		this.bufferSize = bufferSize;
-		sensorManager.registerListener(this, sensor, android.hardware.SensorManager.SENSOR_DELAY_GAME);
-		state = STATE_LISTENING;
+		stopSampling();
+		synchronized (this) {
+			this.listener = listener;
+			startSampling(bufferSize, bufferingPeriod);
+			state = STATE_LISTENING;
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		state = STATE_CLOSED;
+		stopSampling();
+		synchronized (this) {
+			state = STATE_CLOSED;
+			listener = null;
+			notifyAll();
+		}
 	}
 
 	@Override
 	public void onSensorChanged(SensorEvent event) {
-		if (listener != null) {
-			eventsNum++;
-			if (eventsNum >= bufferSize) {
-				Arrays.fill(timestamps, event.timestamp);
-				for (int i = 0; i < dataLength; i++) {
-					float value = event.values[i] * channelInfos[i].getScale();
-					if (channelInfos[i].getDataType() == ChannelInfo.TYPE_DOUBLE) {
-						data[i] = new DataImpl(channelInfos[i], new double[]{value}, timestamps);
-					} else if (channelInfos[i].getDataType() == ChannelInfo.TYPE_INT) {
-						data[i] = new DataImpl(channelInfos[i], new int[]{(int) value}, timestamps);
-					} else {
-						data[i] = new DataImpl(channelInfos[i], new Object[]{value}, timestamps);
-					}
-				}
-				try {
-					listener.dataReceived(this, data, false);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-				eventsNum = 0;
+		Data[] data;
+		DataListener listener;
+		synchronized (this) {
+			SampleBuffer samples = this.samples;
+			if (samples == null || !samples.add(event.values, System.currentTimeMillis())) {
+				return;
+			}
+			data = samples.drain();
+			listener = this.listener;
+			if (listener == null) {
+				this.samples = null;
+				result = data;
+				notifyAll();
+				return;
 			}
 		}
+		try {
+			listener.dataReceived(this, data, false);
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void checkBuffering(int bufferSize, long bufferingPeriod) {
+		if ((bufferSize < 1 && bufferingPeriod < 1) || bufferSize > sensorInfo.getMaxBufferSize()) {
+			throw new IllegalArgumentException();
+		}
+	}
+
+	private boolean startSampling(int bufferSize, long bufferingPeriod) {
+		samples = new SampleBuffer(channelInfos, bufferSize, bufferingPeriod);
+		return sensorManager.registerListener(this, sensor, getSamplingPeriod(bufferSize, bufferingPeriod));
+	}
+
+	private void stopSampling() {
+		sensorManager.unregisterListener(this);
+		synchronized (this) {
+			samples = null;
+		}
+	}
+
+	/**
+	 * @return Android sampling period in microseconds, which fills the buffer
+	 * in the buffering period, or the game rate if there is no period
+	 */
+	private static int getSamplingPeriod(int bufferSize, long bufferingPeriod) {
+		if (bufferingPeriod < 1) {
+			return android.hardware.SensorManager.SENSOR_DELAY_GAME;
+		}
+		long period = bufferingPeriod * 1000 / bufferSize;
+		return (int) Math.max(MIN_SAMPLING_PERIOD, Math.min(period, MAX_SAMPLING_PERIOD));
 	}
 
 	@Override
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.sensor;
+
+import javax.microedition.sensor.ChannelInfo;
+import javax.microedition.sensor.Data;
+import javax.microedition.sensor.DataImpl;
+
+/**
+ * Collects samples of all channels of a sensor into batches of up to bufferSize samples
+ * or of bufferingPeriod milliseconds, whichever comes first.
+ * <p>
+ * Samples are kept in primitive arrays. Batches are delivered in two alternating sets
+ * of Data objects, so the previous batch stays intact while the next one is collected
+ * and batches of the same size do not allocate.
+ */
+class SampleBuffer {
+	private final ChannelInfo[] channelInfos;
+	private final int bufferSize;
+	private final long bufferingPeriod;
+	/** Scaled values, [channel][sample] */
+	private final float[][] values;
+	private final long[] timestamps;
+	private int size;
+
+	private final Batch[] batches;
+	private int nextBatch;
+
+	SampleBuffer(ChannelInfo[] channelInfos, int bufferSize, long bufferingPeriod) {
+		this.channelInfos = channelInfos;
+		this.bufferSize = bufferSize;
+		this.bufferingPeriod = bufferingPeriod;
+		values = new float[channelInfos.length][bufferSize];
+		timestamps = new long[bufferSize];
+		// Batch reads channelInfos, so batches are created after it is set
+		batches = new Batch[]{new Batch(), new Batch()};
+	}
+
+	/**
+	 * @param sample    values of all channels, as reported by the Android sensor
+	 * @param timestamp time of the sample in milliseconds
+	 * @return true if the batch is complete
+	 */
+	boolean add(float[] sample, long timestamp) {
+		for (int i = 0; i < channelInfos.length; i++) {
+			values[i][size] = sample[i] * channelInfos[i].getScale();
+		}
+		timestamps[size++] = timestamp;
+		return size >= bufferSize || bufferingPeriod > 0 && timestamp - timestamps[0] >= bufferingPeriod;
+	}
+
+	/** Moves collected samples to the next set of Data objects */
+	Data[] drain() {
+		Batch batch = batches[nextBatch];
+		nextBatch ^= 1;
+		Data[] data = batch.fill();
+		size = 0;
+		return data;
+	}
+
+	private class Batch {
+		private final DataImpl[] data = new DataImpl[channelInfos.length];
+		private final Object[] arrays = new Object[channelInfos.length];
+		private long[] timestamps;
+
+		Batch() {
+			for (int i = 0; i < data.length; i++) {
+				data[i] = new DataImpl(channelInfos[i]);
+			}
+		}
+
+		Data[] fill() {
+			boolean resize = timestamps == null || timestamps.length != size;
+			if (resize) {
+				timestamps = new long[size];
+			}
+			System.arraycopy(SampleBuffer.this.timestamps, 0, timestamps, 0, size);
+			for (int i = 0; i < data.length; i++) {
+				float[] src = values[i];
+				switch (channelInfos[i].getDataType()) {
+					case ChannelInfo.TYPE_DOUBLE: {
+						double[] dst = resize ? new double[size] : (double[]) arrays[i];
+						for (int j = 0; j < size; j++) {
+							dst[j] = src[j];
+						}
+						arrays[i] = dst;
+						data[i].setDoubleValues(dst, timestamps);
+						break;
+					}
+					case ChannelInfo.TYPE_INT: {
+						int[] dst = resize ? new int[size] : (int[]) arrays[i];
+						for (int j = 0; j < size; j++) {
+							dst[j] = (int) src[j];
+						}
+						arrays[i] = dst;
+						data[i].setIntValues(dst, timestamps);
+						break;
+					}
+					default: {
+						Object[] dst = resize ? new Object[size] : (Object[]) arrays[i];
+						for (int j = 0; j < size; j++) {
+							dst[j] = src[j];
+						}
+						arrays[i] = dst;
+						data[i].setObjectValues(dst, timestamps);
+						break;
+					}
+				}
+			}
+			return data;
+		}
+	}
+}
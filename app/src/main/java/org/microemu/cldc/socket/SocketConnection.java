@@ -35,11 +35,20 @@ public class SocketConnection implements javax.microedition.io.SocketConnection
 
 	protected Socket socket;
 
+	/** Address of the client connection for the pool, null for accepted connections */
+	private String host;
+	private int port;
+	private SocketInputStream inputStream;
+	private SocketOutputStream outputStream;
+
 	public SocketConnection() {
 	}
 
 	public SocketConnection(String host, int port) throws IOException {
-		this.socket = new Socket(host, port);
+		this.host = host;
+		this.port = port;
+		Socket socket = SocketPool.take(host, port);
+		this.socket = socket != null ? socket : new Socket(host, port);
 	}
 
 	public SocketConnection(Socket socket) {
@@ -132,6 +141,10 @@ public class SocketConnection implements javax.microedition.io.SocketConnection
 					delay = 1;
 				}
 				socket.setTcpNoDelay(delay != 0);
+				SocketOutputStream out = getOutputStream();
+				if (out != null) {
+					out.setNoDelay(delay != 0);
+				}
 				break;
 			case LINGER:
 				if (value < 0) {
@@ -169,12 +182,52 @@ public class SocketConnection implements javax.microedition.io.SocketConnection
 	public void close() throws IOException {
 		// TODO fix differences between Java ME and Java SE
 
-		socket.close();
+		SocketOutputStream out = getOutputStream();
+		try {
+			// data is sent before close, so LINGER applies to it too
+			if (out != null && !out.isClosed()) {
+				out.flushIfIdle();
+			}
+		} finally {
+			if (!releaseToPool()) {
+				socket.close();
+			}
+		}
+	}
+
+	/** The socket can be reused only when the MIDlet has closed its streams */
+	private synchronized boolean releaseToPool() {
+		if (host == null || !SocketPool.isEnabled()) {
+			return false;
+		}
+		SocketInputStream in = inputStream;
+		if (in != null && (!in.isClosed() || in.buffered() > 0)) {
+			return false;
+		}
+		SocketOutputStream out = outputStream;
+		if (out != null && !out.isClosed()) {
+			return false;
+		}
+		return SocketPool.offer(host, port, socket);
+	}
+
+	private synchronized SocketOutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	void flushOutputSoon() {
+		SocketOutputStream out = getOutputStream();
+		if (out != null) {
+			out.flushSoon();
+		}
 	}
 
 	@Override
-	public InputStream openInputStream() throws IOException {
-		return socket.getInputStream();
+	public synchronized InputStream openInputStream() throws IOException {
+		if (inputStream == null) {
+			inputStream = new SocketInputStream(socket.getInputStream(), this);
+		}
+		return inputStream;
 	}
 
 	@Override
@@ -183,8 +236,11 @@ public class SocketConnection implements javax.microedition.io.SocketConnection
 	}
 
 	@Override
-	public OutputStream openOutputStream() throws IOException {
-		return socket.getOutputStream();
+	public synchronized OutputStream openOutputStream() throws IOException {
+		if (outputStream == null) {
+			outputStream = new SocketOutputStream(socket.getOutputStream(), socket.getTcpNoDelay());
+		}
+		return outputStream;
 	}
 
 	@Override
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.socket;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Buffered socket input stream.
+ * <p>
+ * Before waiting for data it asks the output stream of the connection to send buffered data,
+ * as the peer may wait for it to respond.
+ */
+class SocketInputStream extends BufferedInputStream {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final SocketConnection connection;
+	private volatile boolean closed;
+
+	SocketInputStream(InputStream in, SocketConnection connection) {
+		super(in, BUFFER_SIZE);
+		this.connection = connection;
+	}
+
+	@Override
+	public synchronized int read() throws IOException {
+		ensureOpen();
+		if (pos >= count) {
+			connection.flushOutputSoon();
+		}
+		return super.read();
+	}
+
+	@Override
+	public synchronized int read(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		if (pos >= count) {
+			connection.flushOutputSoon();
+		}
+		return super.read(b, off, len);
+	}
+
+	/**
+	 * With the connection pool the socket is closed by the connection, not by its streams.
+	 * The stream monitor is not taken, it is held by a read blocked on the socket.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (!SocketPool.isEnabled()) {
+			super.close();
+		}
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	/**
+	 * Called only after the stream is closed, so no read can change the buffer.
+	 *
+	 * @return number of bytes read from the socket but not by the MIDlet
+	 */
+	int buffered() {
+		return count - pos;
+	}
+}
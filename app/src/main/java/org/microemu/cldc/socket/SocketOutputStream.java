@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.socket;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffered socket output stream.
+ * <p>
+ * Data is sent on flush(), when the buffer is full, or a few milliseconds after it was written,
+ * so MIDlets which never call flush() still work. If the delay option of the socket is off,
+ * data is sent after each write call as with the raw socket stream.
+ * <p>
+ * Delayed flushes of all connections run on one timer thread, so it never waits for a write
+ * or flush in progress, which may be blocked on the socket, and retries later instead.
+ */
+class SocketOutputStream extends BufferedOutputStream {
+	private static final int BUFFER_SIZE = 8192;
+	private static final long FLUSH_DELAY = 10;
+
+	private static Timer timer;
+
+	/** Guards the buffer, held by write and flush calls while they may block on the socket */
+	private final ReentrantLock lock = new ReentrantLock();
+	private boolean noDelay;
+	private boolean flushScheduled;
+	private volatile boolean closed;
+
+	SocketOutputStream(OutputStream out, boolean noDelay) {
+		super(out, BUFFER_SIZE);
+		this.noDelay = noDelay;
+	}
+
+	void setNoDelay(boolean noDelay) throws IOException {
+		lock.lock();
+		try {
+			this.noDelay = noDelay;
+			if (noDelay) {
+				super.flush();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		lock.lock();
+		try {
+			super.write(b);
+			afterWrite();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+		lock.lock();
+		try {
+			super.write(b, off, len);
+			afterWrite();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		lock.lock();
+		try {
+			super.flush();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * With the connection pool the socket is closed by the connection, not by its streams.
+	 * Buffered data is sent unless another thread is blocked on the socket,
+	 * then the stream is closed without waiting for it, as the raw socket stream does.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (SocketPool.isEnabled()) {
+			flush();
+			return;
+		}
+		try {
+			flushIfIdle();
+		} finally {
+			out.close();
+		}
+	}
+
+	/** Sends buffered data if no write or flush is in progress, so it doesn't wait for them */
+	void flushIfIdle() throws IOException {
+		if (!lock.tryLock()) {
+			return;
+		}
+		try {
+			super.flush();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	/** Sends buffered data soon without blocking the caller */
+	void flushSoon() {
+		if (count > 0) {
+			schedule(0);
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private void afterWrite() throws IOException {
+		if (noDelay) {
+			flush();
+		} else if (count > 0 && !flushScheduled) {
+			flushScheduled = true;
+			schedule(FLUSH_DELAY);
+		}
+	}
+
+	private void schedule(long delay) {
+		getTimer().schedule(new TimerTask() {
+			@Override
+			public void run() {
+				if (!lock.tryLock()) {
+					// the writer may be blocked on the socket, don't hold up other connections
+					schedule(FLUSH_DELAY);
+					return;
+				}
+				try {
+					flushScheduled = false;
+					if (count == 0) {
+						return;
+					}
+					SocketOutputStream.super.flush();
+				} catch (IOException ignored) {
+					// the error is thrown to the MIDlet on the next write
+				} finally {
+					lock.unlock();
+				}
+			}
+		}, delay);
+	}
+
+	private static synchronized Timer getTimer() {
+		if (timer == null) {
+			timer = new Timer("SocketFlush", true);
+		}
+		return timer;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.socket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import ru.playsoftware.j2meloader.config.ProfileModel;
+
+/**
+ * Keeps closed client connections open for reuse by the next connection to the same host and port.
+ * <p>
+ * It changes the protocol seen by the server, so it is enabled only by the profile
+ * setting, for servers that accept several requests per connection.
+ * The "emulator.socket.pool.timeout" system property sets how long in milliseconds
+ * an idle connection is kept (30 seconds by default).
+ */
+public class SocketPool {
+	private static final String KEY_TIMEOUT = "emulator.socket.pool.timeout";
+	private static final int MAX_IDLE = 8;
+
+	private static final ArrayList<Entry> idle = new ArrayList<>();
+	private static volatile boolean enabled;
+
+	public static void applySettings(ProfileModel params) {
+		enabled = params.socketPool;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	static boolean isEnabled() {
+		return enabled;
+	}
+
+	/** @return open idle connection to the address or null */
+	static Socket take(String host, int port) {
+		if (!isEnabled()) {
+			return null;
+		}
+		long timeout = Integer.getInteger(KEY_TIMEOUT, 30000);
+		long now = System.currentTimeMillis();
+		Socket socket = null;
+		synchronized (idle) {
+			for (Iterator<Entry> iterator = idle.iterator(); iterator.hasNext(); ) {
+				Entry entry = iterator.next();
+				if (now - entry.time > timeout) {
+					iterator.remove();
+					close(entry.socket);
+				} else if (socket == null && entry.port == port && entry.host.equals(host)) {
+					iterator.remove();
+					socket = entry.socket;
+				}
+			}
+		}
+		if (socket != null && !isAlive(socket)) {
+			close(socket);
+			return null;
+		}
+		return socket;
+	}
+
+	/**
+	 * Keeps the socket if it is fit for reuse.
+	 *
+	 * @return true if the socket was taken by the pool
+	 */
+	static boolean offer(String host, int port, Socket socket) {
+		if (!isEnabled() || !isAlive(socket)) {
+			return false;
+		}
+		try {
+			if (socket.getSoLinger() != -1) {
+				// the MIDlet wants close to wait for sent data
+				return false;
+			}
+			socket.setTcpNoDelay(false);
+			socket.setKeepAlive(true);
+		} catch (IOException e) {
+			return false;
+		}
+		synchronized (idle) {
+			if (idle.size() >= MAX_IDLE) {
+				close(idle.remove(0).socket);
+			}
+			idle.add(new Entry(host, port, socket));
+		}
+		return true;
+	}
+
+	/** Closes all idle connections */
+	private static void clear() {
+		synchronized (idle) {
+			for (Entry entry : idle) {
+				close(entry.socket);
+			}
+			idle.clear();
+		}
+	}
+
+	/** Checks that the peer has not closed the connection and has not sent anything unexpected */
+	private static boolean isAlive(Socket socket) {
+		if (socket.isClosed() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+			return false;
+		}
+		try {
+			InputStream in = socket.getInputStream();
+			if (in.available() > 0) {
+				return false;
+			}
+			socket.setSoTimeout(1);
+			try {
+				// end of stream or data, either way the connection can't be reused
+				in.read();
+				return false;
+			} catch (SocketTimeoutException e) {
+				return true;
+			} finally {
+				socket.setSoTimeout(0);
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static class Entry {
+		final String host;
+		final int port;
+		final Socket socket;
+		final long time = System.currentTimeMillis();
+
+		Entry(String host, int port, Socket socket) {
+			this.host = host;
+			this.port = port;
+			this.socket = socket;
+		}
+	}
+}
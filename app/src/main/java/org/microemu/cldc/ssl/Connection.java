@@ -98,13 +98,6 @@ public class Connection extends org.microemu.cldc.socket.SocketConnection implem
 		return this;
 	}
 
-	@Override
-	public void close() throws IOException {
-		// TODO fix differences between Java ME and Java SE
-
-		socket.close();
-	}
-
 	@Override
 	public SecurityInfo getSecurityInfo() throws IOException {
 		if (securityInfo == null) {
@@ -599,6 +599,7 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 		binding.tfFontSizeLarge.setText(Integer.toString(params.fontSizeLarge));
 		binding.cxFontSizeInSP.setChecked(params.fontApplyDimensions);
 		binding.cxFontAA.setChecked(params.fontAA);
+		binding.cxFontGlyphCache.setChecked(params.fontGlyphCache);
 		boolean showVk = params.showKeyboard;
 		binding.cxIsShowKeyboard.setChecked(showVk);
 		binding.groupVkConfig.setVisibility(showVk ? View.VISIBLE : View.GONE);
@@ -607,6 +608,7 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 		binding.cxTouchInput.setChecked(params.touchInput);
 		int fpsLimit = params.fpsLimit;
 		binding.etFpsLimit.setText(fpsLimit > 0 ? Integer.toString(fpsLimit) : "");
+		binding.spFramePacing.setSelection(params.framePacing);
 
 		binding.spLayout.setSelection(params.keyCodesLayout);
 		binding.spButtonsShape.setSelection(params.vkButtonShape);
@@ -620,6 +622,15 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 		binding.tfVKSelFore.setText(String.format("%06X", params.vkFgColorSelected));
 		binding.tfVKOutline.setText(String.format("%06X", params.vkOutlineColor));
 		setSpinnerSelection(binding.spSoundBank, params.soundBank);
+		binding.cxRmsJournal.setChecked(params.rmsJournal);
+		binding.cxRmsWriteBehind.setChecked(params.rmsWriteBehind);
+		int rmsFlushInterval = params.rmsFlushInterval;
+		binding.etRmsFlushInterval.setText(rmsFlushInterval > 0 ? Integer.toString(rmsFlushInterval) : "");
+		int fileMmapThreshold = params.fileMmapThreshold;
+		binding.etFileMmapThreshold.setText(fileMmapThreshold > 0 ? Integer.toString(fileMmapThreshold) : "");
+		binding.cxSocketPool.setChecked(params.socketPool);
+		int httpCacheSize = params.httpCacheSize;
+		binding.etHttpCacheSize.setText(httpCacheSize > 0 ? Integer.toString(httpCacheSize) : "");
 
 		String systemProperties = params.systemProperties;
 		if (systemProperties == null) {
@@ -680,6 +691,7 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 			} catch (NumberFormatException e) {
 				params.fpsLimit = 0;
 			}
+			params.framePacing = binding.spFramePacing.getSelectedItemPosition();
 
 			try {
 				params.fontSizeSmall = Integer.parseInt(binding.tfFontSizeSmall.getText().toString());
@@ -698,6 +710,7 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 			}
 			params.fontApplyDimensions = binding.cxFontSizeInSP.isChecked();
 			params.fontAA = binding.cxFontAA.isChecked();
+			params.fontGlyphCache = binding.cxFontGlyphCache.isChecked();
 			params.showKeyboard = binding.cxIsShowKeyboard.isChecked();
 			params.vkFeedback = binding.cxVKFeedback.isChecked();
 			params.vkForceOpacity = binding.cxVKForceOpacity.isChecked();
@@ -732,6 +745,24 @@ public class ConfigActivity extends AppCompatActivity implements View.OnClickLis
 			} catch (Exception ignored) {
 			}
 			params.soundBank = binding.spSoundBank.getSelectedItemPosition() > 0 ? (String) binding.spSoundBank.getSelectedItem() : null;
+			params.rmsJournal = binding.cxRmsJournal.isChecked();
+			params.rmsWriteBehind = binding.cxRmsWriteBehind.isChecked();
+			try {
+				params.rmsFlushInterval = Integer.parseInt(binding.etRmsFlushInterval.getText().toString());
+			} catch (NumberFormatException e) {
+				params.rmsFlushInterval = 0;
+			}
+			try {
+				params.fileMmapThreshold = Integer.parseInt(binding.etFileMmapThreshold.getText().toString());
+			} catch (NumberFormatException e) {
+				params.fileMmapThreshold = 0;
+			}
+			params.socketPool = binding.cxSocketPool.isChecked();
+			try {
+				params.httpCacheSize = Integer.parseInt(binding.etHttpCacheSize.getText().toString());
+			} catch (NumberFormatException e) {
+				params.httpCacheSize = 0;
+			}
 			params.systemProperties = getSystemProperties(binding.tfSystemProperties.getText().toString());
 
 			ProfilesManager.saveConfig(params);
@@ -24,6 +24,7 @@ import com.google.gson.annotations.SerializedName;
 import java.io.File;
 import java.util.List;
 
+import javax.microedition.lcdui.FramePacer;
 import javax.microedition.lcdui.keyboard.KeyModel;
 import javax.microedition.lcdui.keyboard.VirtualKeyboard;
 import javax.microedition.util.ContextHolder;
@@ -31,7 +32,7 @@ import javax.microedition.util.ContextHolder;
 import ru.playsoftware.j2meloader.util.SparseIntArrayAdapter;
 
 public class ProfileModel {
-	public static final int VERSION = 3;
+	public static final int VERSION = 5;
 	/** True if this is a new profile (not yet saved to file) */
 	public final transient boolean isNew;
 
@@ -97,6 +98,9 @@ public class ProfileModel {
 	@SerializedName("FpsLimit")
 	public int fpsLimit;
 
+	@SerializedName("FramePacing")
+	public int framePacing;
+
 	@SerializedName("ForceFullscreen")
 	public boolean forceFullscreen;
 
@@ -115,6 +119,9 @@ public class ProfileModel {
 	@SerializedName("FontAntiAlias")
 	public boolean fontAA;
 
+	@SerializedName("FontGlyphCache")
+	public boolean fontGlyphCache;
+
 	@SerializedName("TouchInput")
 	public boolean touchInput;
 
@@ -167,6 +174,24 @@ public class ProfileModel {
 	@SerializedName("SoundBank")
 	public String soundBank;
 
+	@SerializedName("RecordStoreJournal")
+	public boolean rmsJournal;
+
+	@SerializedName("RecordStoreWriteBehind")
+	public boolean rmsWriteBehind;
+
+	@SerializedName("RecordStoreFlushInterval")
+	public int rmsFlushInterval;
+
+	@SerializedName("FileMmapThreshold")
+	public int fileMmapThreshold;
+
+	@SerializedName("SocketPool")
+	public boolean socketPool;
+
+	@SerializedName("HttpCacheSize")
+	public int httpCacheSize;
+
 	@SerializedName("SystemProperties")
 	public String systemProperties;
 
@@ -188,6 +213,7 @@ public class ProfileModel {
 		screenScaleToFit = true;
 		screenKeepAspectRatio = true;
 		graphicsMode = 1;
+		framePacing = FramePacer.MODE_PRECISE;
 
 		fontSizeSmall = 18;
 		fontSizeMedium = 22;
@@ -205,6 +231,7 @@ public class ProfileModel {
 		vkBgColorSelected = 0x000080;
 		vkFgColorSelected = 0xFFFFFF;
 		vkOutlineColor = 0xFFFFFF;
+		httpCacheSize = 4096;
 		systemProperties = ContextHolder.getAssetAsString("defaults/system.props");
 	}
 }
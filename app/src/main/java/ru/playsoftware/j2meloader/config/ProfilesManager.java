@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 
+import javax.microedition.lcdui.FramePacer;
 import javax.microedition.util.ContextHolder;
 
 import androidx.annotation.NonNull;
@@ -166,6 +167,10 @@ public class ProfilesManager {
 					params.screenScaleType = 0;
 				}
 				params.screenGravity = 1;
+			case 3:
+				params.framePacing = FramePacer.MODE_PRECISE;
+			case 4:
+				params.httpCacheSize = 4096;
 
 				params.version = ProfileModel.VERSION;
 				ProfilesManager.saveConfig(params);
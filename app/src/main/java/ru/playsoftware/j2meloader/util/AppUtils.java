@@ -42,6 +42,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import javax.microedition.shell.DexOptCache;
 import javax.microedition.util.ContextHolder;
 
 import ru.playsoftware.j2meloader.R;
@@ -113,6 +114,7 @@ public class AppUtils {
 		FileUtils.deleteDirectory(appSaveDir);
 		File appConfigsDir = new File(Config.getConfigsDir(), item.getPath());
 		FileUtils.deleteDirectory(appConfigsDir);
+		DexOptCache.invalidate(ContextHolder.getAppContext(), item.getPath());
 		ShortcutManagerCompat.removeDynamicShortcuts(ContextHolder.getAppContext(), List.of(item.getPathExt()));
 	}
 
@@ -31,6 +31,7 @@ public class Constants {
 	public static final String PREF_EMULATOR_DIR = "emulator_dir";
 	public static final String PREF_KEEP_SCREEN = "pref_wakelock_switch";
 	public static final String PREF_LAST_PATH = "pref_last_path";
+	public static final String PREF_STORE_RESOURCES = "pref_store_resources_switch";
 	public static final String PREF_STATUSBAR = "pref_statusbar_switch";
 	public static final String PREF_THEME = "pref_theme";
 	public static final String PREF_TOOLBAR = "pref_actionbar_switch";
@@ -30,8 +30,11 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigInteger;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import kotlin.io.FilesKt;
 import ru.playsoftware.j2meloader.EmulatorApplication;
@@ -77,6 +80,28 @@ public class FileUtils {
 		}
 	}
 
+	/**
+	 * Computes MD5 of the file reading it with a fixed size buffer
+	 *
+	 * @return hex string without leading zeros
+	 */
+	public static String getMd5(File file) throws IOException {
+		MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+		try (InputStream is = new FileInputStream(file)) {
+			byte[] buf = new byte[8192];
+			int read;
+			while ((read = is.read(buf)) != -1) {
+				md.update(buf, 0, read);
+			}
+		}
+		return new BigInteger(1, md.digest()).toString(16);
+	}
+
 	public static void deleteDirectory(File dir) {
 		if (dir.isDirectory()) {
 			File[] listFiles = dir.listFiles();
@@ -24,11 +24,28 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class ZipUtils {
 
 	private static final int BUFFER_SIZE = 8096;
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int PAGE_SIZE = 4096;
+	private static final int PAGE_ALIGNED_SIZE = 16 * PAGE_SIZE;
+	private static final int ALIGNMENT = 4;
+	/** Extra field id used by Android tools for alignment padding */
+	private static final int ALIGNMENT_EXTRA_ID = 0xD935;
 
 	public static void unzipEntry(File srcZip, String name, File dst) throws IOException {
 		try (ZipFile zip = new ZipFile(srcZip)) {
@@ -46,4 +63,98 @@ public class ZipUtils {
 			}
 		}
 	}
+
+	/**
+	 * Copies zip archive storing all non-class entries without compression.
+	 * Data of stored entries is aligned to 4 bytes, large entries
+	 * are aligned to the page size, so they can be read directly from a memory-mapped file.
+	 */
+	public static void repackStored(File srcZip, File dst) throws IOException {
+		try (ZipFile zip = new ZipFile(srcZip);
+			 CountingOutputStream cos = new CountingOutputStream(
+					 new BufferedOutputStream(new FileOutputStream(dst), BUFFER_SIZE));
+			 ZipOutputStream zos = new ZipOutputStream(cos)) {
+			HashSet<String> names = new HashSet<>();
+			CRC32 crc = new CRC32();
+			for (FileHeader fh : zip.getFileHeaders()) {
+				String name = fh.getFileName();
+				if (name == null || name.trim().isEmpty() || !names.add(name)) {
+					continue;
+				}
+				byte[] data;
+				try (InputStream is = zip.getInputStream(fh)) {
+					data = IOUtils.toByteArray(is);
+				}
+				ZipEntry entry = new ZipEntry(name);
+				entry.setTime(fh.getLastModifiedTimeEpoch());
+				if (name.endsWith(".class")) {
+					entry.setMethod(ZipEntry.DEFLATED);
+					zos.putNextEntry(entry);
+				} else {
+					crc.reset();
+					crc.update(data, 0, data.length);
+					entry.setMethod(ZipEntry.STORED);
+					entry.setSize(data.length);
+					entry.setCompressedSize(data.length);
+					entry.setCrc(crc.getValue());
+					int alignment = data.length >= PAGE_ALIGNED_SIZE ? PAGE_SIZE : ALIGNMENT;
+					long dataOffset = cos.count + LOCAL_HEADER_SIZE
+							+ name.getBytes(StandardCharsets.UTF_8).length + 4;
+					int padding = (int) ((alignment - dataOffset % alignment) % alignment);
+					byte[] extra = new byte[4 + padding];
+					extra[0] = (byte) ALIGNMENT_EXTRA_ID;
+					extra[1] = (byte) (ALIGNMENT_EXTRA_ID >> 8);
+					extra[2] = (byte) padding;
+					extra[3] = (byte) (padding >> 8);
+					entry.setExtra(extra);
+					zos.putNextEntry(entry);
+				}
+				zos.write(data);
+				zos.closeEntry();
+			}
+		}
+	}
+
+	/**
+	 * Returns data of a stored entry as a slice of the whole zip archive mapped into memory,
+	 * or null if the local header of the entry doesn't match the buffer
+	 */
+	public static ByteBuffer getStoredData(ByteBuffer zip, FileHeader header) {
+		ByteBuffer data = zip.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		long offset = header.getOffsetLocalHeader();
+		int capacity = data.capacity();
+		if (offset < 0 || offset + LOCAL_HEADER_SIZE > capacity
+				|| data.getInt((int) offset) != LOCAL_HEADER_SIGNATURE) {
+			return null;
+		}
+		int pos = (int) offset;
+		long start = pos + LOCAL_HEADER_SIZE
+				+ (data.getShort(pos + 26) & 0xffff) + (data.getShort(pos + 28) & 0xffff);
+		long end = start + header.getCompressedSize();
+		if (end > capacity) {
+			return null;
+		}
+		data.limit((int) end).position((int) start);
+		return data.slice();
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
 }
@@ -16,10 +16,15 @@
 
 package ru.woesss.j2me.installer;
 
+import android.content.SharedPreferences;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.util.Log;
 
-import com.android.dx.command.dexer.Main;
+import androidx.preference.PreferenceManager;
+
+import com.android.dex.DexFormat;
+import com.android.dx.command.dexer.Dexer;
 
 import net.lingala.zip4j.io.inputstream.ZipInputStream;
 import net.lingala.zip4j.model.FileHeader;
@@ -35,15 +40,25 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.microedition.shell.DexOptCache;
 
 import io.reactivex.SingleEmitter;
+import kotlin.io.FilesKt;
 import ru.playsoftware.j2meloader.EmulatorApplication;
 import ru.playsoftware.j2meloader.applist.AppItem;
 import ru.playsoftware.j2meloader.applist.AppListModel;
 import ru.playsoftware.j2meloader.config.Config;
+import ru.playsoftware.j2meloader.util.Constants;
 import ru.playsoftware.j2meloader.util.ConverterException;
 import ru.playsoftware.j2meloader.util.FileUtils;
 import ru.playsoftware.j2meloader.util.IOUtils;
@@ -60,10 +75,13 @@ public class AppInstaller {
 	static final int STATUS_UNMATCHED = 3;
 	static final int STATUS_SUCCESS = 4;
 	static final int STATUS_SAME = 5;
+	/** Dexer options affecting the output, part of the dex cache key */
+	private static final String DEX_OPTIONS = "--no-optimize";
 
 	private final int id;
 	private final AppListModel appListModel;
 	private final File cacheDir = new File(EmulatorApplication.getInstance().getCacheDir(), "installer");
+	private final DexCache dexCache = new DexCache(new File(EmulatorApplication.getInstance().getCacheDir(), "dex"));
 
 	private Uri uri;
 	private Descriptor manifest;
@@ -74,6 +92,8 @@ public class AppInstaller {
 	private File tmpDir;
 	private AppItem currentApp;
 	private File srcFile;
+	private long installTime;
+	private boolean dexCached;
 
 	AppInstaller(String path, Uri uri, AppListModel appListModel) {
 		id = -1;
@@ -250,6 +270,7 @@ public class AppInstaller {
 
 	/** Install app */
 	void install(SingleEmitter<Integer> emitter) throws ConverterException, IOException {
+		long start = SystemClock.elapsedRealtime();
 		if (!cacheDir.exists() && !cacheDir.mkdirs()) {
 			throw new ConverterException("Can't create cache dir");
 		}
@@ -265,19 +286,29 @@ public class AppInstaller {
 				return;
 			}
 		}
-		try {
-			Main.main(new String[]{"--no-optimize",
-					"--output=" + tmpDir + Config.MIDLET_DEX_ARCH,
-					srcJar.getAbsolutePath()});
-		} catch (Throwable e) {
-			throw new ConverterException("Dexing error", e);
+		File dexArch = new File(tmpDir, Config.MIDLET_DEX_ARCH);
+		Map<String, byte[]> classes = readClasses(srcJar);
+		String dexKey = dexCache.computeKey(classes, DEX_OPTIONS);
+		dexCached = dexKey != null && dexCache.get(dexKey, dexArch);
+		if (!dexCached) {
+			Dexer dexer = new Dexer(false, Runtime.getRuntime().availableProcessors());
+			try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(dexArch))) {
+				zos.putNextEntry(new ZipEntry(DexFormat.DEX_IN_JAR_NAME));
+				dexer.dex(classes, zos);
+				zos.closeEntry();
+			} catch (Throwable e) {
+				throw new ConverterException("Dexing error", e);
+			}
+			if (dexKey != null) {
+				dexCache.put(dexKey, dexArch);
+			}
 		}
 		if (manifest != null) {
 			manifest.merge(newDesc);
 			newDesc = manifest;
 		}
 		File resJar = new File(tmpDir, Config.MIDLET_RES_FILE);
-		FileUtils.copyFileUsingChannel(srcJar, resJar);
+		copyResources(resJar);
 		String icon = newDesc.getIcon();
 		File iconFile = new File(tmpDir, Config.MIDLET_ICON_FILE);
 		if (icon != null) {
@@ -290,10 +321,17 @@ public class AppInstaller {
 			}
 		}
 		newDesc.writeTo(new File(tmpDir, Config.MIDLET_MANIFEST_FILE));
+		try {
+			String jarHash = FileUtils.getMd5(srcJar) + '\n' + srcJar.length();
+			FilesKt.writeText(new File(tmpDir, Config.MIDLET_JAR_HASH_FILE), jarHash, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			Log.w(TAG, "Can't save jar hash", e);
+		}
 		FileUtils.deleteDirectory(targetDir);
 		if (!tmpDir.renameTo(targetDir)) {
 			throw new ConverterException("Can't move '" + tmpDir + "' to '" + targetDir + "'");
 		}
+		DexOptCache.invalidate(EmulatorApplication.getInstance(), appDirName);
 		String name = newDesc.getName();
 		String vendor = newDesc.getVendor();
 		AppItem app = new AppItem(appDirName, name, vendor, newDesc.getVersion());
@@ -316,15 +354,47 @@ public class AppInstaller {
 				}
 				File appDir = new File(Config.getAppDir(), path);
 				FileUtils.deleteDirectory(appDir);
+				DexOptCache.invalidate(EmulatorApplication.getInstance(), path);
 			}
 		}
 		currentApp = app;
 		appListModel.addApp(app);
 		clearCache();
 		deleteTemp();
+		installTime = SystemClock.elapsedRealtime() - start;
+		Log.i(TAG, "install: done in " + installTime + " ms, dex cache " + (dexCached ? "hit" : "miss"));
 		emitter.onSuccess(STATUS_SUCCESS);
 	}
 
+	private void copyResources(File resJar) throws IOException {
+		SharedPreferences sp = PreferenceManager.getDefaultSharedPreferences(EmulatorApplication.getInstance());
+		if (sp.getBoolean(Constants.PREF_STORE_RESOURCES, false)) {
+			try {
+				ZipUtils.repackStored(srcJar, resJar);
+				return;
+			} catch (IOException e) {
+				Log.w(TAG, "copyResources: can't repack " + srcJar + ", copy as is", e);
+			}
+		}
+		FileUtils.copyFileUsingChannel(srcJar, resJar);
+	}
+
+	private static Map<String, byte[]> readClasses(File jar) throws IOException {
+		Map<String, byte[]> classes = new TreeMap<>();
+		try (ZipFile zip = new ZipFile(jar)) {
+			for (FileHeader fh : zip.getFileHeaders()) {
+				String name = fh.getFileName();
+				if (fh.isDirectory() || !name.toLowerCase(Locale.US).endsWith(".class")) {
+					continue;
+				}
+				try (ZipInputStream is = zip.getInputStream(fh)) {
+					classes.put(name, IOUtils.toByteArray(is));
+				}
+			}
+		}
+		return classes;
+	}
+
 	private Descriptor loadManifest(File jar) throws IOException {
 		try (ZipFile zip = new ZipFile(jar)) {
 			FileHeader manifest = zip.getFileHeader(JarFile.MANIFEST_NAME);
@@ -485,6 +555,16 @@ public class AppInstaller {
 		return targetDir.getAbsolutePath() + Config.MIDLET_ICON_FILE;
 	}
 
+	/** Duration of the last install in milliseconds */
+	long getInstallTime() {
+		return installTime;
+	}
+
+	/** Whether the last install reused previously converted classes */
+	boolean isDexCached() {
+		return dexCached;
+	}
+
 	public AppItem getExistsApp() {
 		return currentApp;
 	}
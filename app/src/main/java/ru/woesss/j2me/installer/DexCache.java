@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.woesss.j2me.installer;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+import ru.playsoftware.j2meloader.BuildConfig;
+import ru.playsoftware.j2meloader.util.FileUtils;
+
+/**
+ * Cache of converted dex archives.
+ * <p>
+ * The key is a SHA-256 digest of the converter options and of the names and
+ * SHA-256 digests of all class files of the jar, so an archive is reused when
+ * every class of the new jar is byte-identical to a previously converted one,
+ * e.g. on reinstall or on update that changes only resources.
+ */
+class DexCache {
+	private static final String TAG = DexCache.class.getSimpleName();
+	private static final long MAX_CACHE_SIZE = 32 * 1024 * 1024;
+	private static final int MAX_ENTRIES = 16;
+	private static final String SUFFIX = ".dex.zip";
+
+	private final File dir;
+
+	DexCache(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * @param classes class file names and contents, sorted by name
+	 * @param options converter options that affect the output
+	 * @return cache key or null if SHA-256 is not available
+	 */
+	String computeKey(Map<String, byte[]> classes, String... options) {
+		try {
+			MessageDigest key = MessageDigest.getInstance("SHA-256");
+			MessageDigest classDigest = MessageDigest.getInstance("SHA-256");
+			key.update(String.valueOf(BuildConfig.VERSION_CODE).getBytes(StandardCharsets.UTF_8));
+			for (String option : options) {
+				key.update(option.getBytes(StandardCharsets.UTF_8));
+				key.update((byte) 0);
+			}
+			for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+				key.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+				key.update((byte) 0);
+				key.update(classDigest.digest(entry.getValue()));
+			}
+			return toHex(key.digest());
+		} catch (NoSuchAlgorithmException e) {
+			Log.w(TAG, "computeKey: ", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Copies cached archive to target
+	 *
+	 * @return true if archive was found in cache
+	 */
+	boolean get(String key, File target) {
+		File file = new File(dir, key + SUFFIX);
+		if (!file.isFile()) {
+			Log.d(TAG, "get: miss " + key);
+			return false;
+		}
+		try {
+			FileUtils.copyFileUsingChannel(file, target);
+		} catch (IOException e) {
+			Log.w(TAG, "get: can't copy " + file, e);
+			//noinspection ResultOfMethodCallIgnored
+			target.delete();
+			return false;
+		}
+		//noinspection ResultOfMethodCallIgnored
+		file.setLastModified(System.currentTimeMillis());
+		Log.d(TAG, "get: hit " + key);
+		return true;
+	}
+
+	void put(String key, File dexArchive) {
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			Log.w(TAG, "put: can't create " + dir);
+			return;
+		}
+		File tmp = new File(dir, key + ".tmp");
+		try {
+			FileUtils.copyFileUsingChannel(dexArchive, tmp);
+			if (!tmp.renameTo(new File(dir, key + SUFFIX))) {
+				throw new IOException("Can't rename " + tmp);
+			}
+		} catch (IOException e) {
+			Log.w(TAG, "put: can't store " + dexArchive, e);
+			//noinspection ResultOfMethodCallIgnored
+			tmp.delete();
+			return;
+		}
+		trim();
+	}
+
+	/** Evicts least recently used archives above the limits */
+	private void trim() {
+		File[] files = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+		long size = 0;
+		for (int i = 0; i < files.length; i++) {
+			File file = files[i];
+			size += file.length();
+			if (i >= MAX_ENTRIES || size > MAX_CACHE_SIZE) {
+				Log.d(TAG, "trim: evict " + file.getName());
+				//noinspection ResultOfMethodCallIgnored
+				file.delete();
+			}
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			sb.append(Character.forDigit(b >> 4 & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return sb.toString();
+	}
+}
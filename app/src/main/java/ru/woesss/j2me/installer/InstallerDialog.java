@@ -222,7 +222,10 @@ public class InstallerDialog extends DialogFragment {
 		}
 		if (status == AppInstaller.STATUS_SUCCESS) {
 			binding.progress.setVisibility(View.GONE);
-			binding.tvStatus.setText(getString(R.string.install_done));
+			String time = getString(installer.isDexCached()
+							? R.string.install_time_cached : R.string.install_time,
+					installer.getInstallTime() / 1000.0f);
+			binding.tvStatus.setText(getString(R.string.install_done) + '\n' + time);
 			AppItem app = installer.getExistsApp();
 			Drawable drawable = Drawable.createFromPath(app.getImagePathExt());
 			if (drawable != null) dialog.setIcon(drawable);
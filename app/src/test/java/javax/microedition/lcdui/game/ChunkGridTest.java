@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui.game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkGridTest {
+	/** 10x7 cells in chunks of 4x3 cells: 3x3 chunks, the last column and row are partial */
+	private static final int COLUMNS = 10;
+	private static final int ROWS = 7;
+
+	@Test
+	public void chunkIndexAcrossBoundaries() {
+		ChunkGrid grid = new ChunkGrid(new int[ROWS][COLUMNS], 4, 3);
+		assertEquals(3, grid.chunksX);
+		assertEquals(3, grid.chunksY);
+		assertEquals(0, grid.chunkIndex(3, 2));
+		assertEquals(1, grid.chunkIndex(4, 2));
+		assertEquals(3, grid.chunkIndex(3, 3));
+		assertEquals(4, grid.chunkIndex(4, 3));
+		assertEquals(8, grid.chunkIndex(9, 6));
+	}
+
+	@Test
+	public void edgeChunkSize() {
+		ChunkGrid grid = new ChunkGrid(new int[ROWS][COLUMNS], 4, 3);
+		assertEquals(4, grid.getColumns(0));
+		assertEquals(3, grid.getRows(0));
+		assertEquals(2, grid.getColumns(5));
+		assertEquals(3, grid.getRows(5));
+		assertEquals(4, grid.getColumns(7));
+		assertEquals(1, grid.getRows(7));
+		assertEquals(2, grid.getColumns(8));
+		assertEquals(1, grid.getRows(8));
+
+		grid.invalidate(8);
+		int[] dirty = new int[4];
+		assertTrue(grid.takeDirty(8, dirty));
+		assertArrayEquals(new int[]{0, 0, 2, 1}, dirty);
+	}
+
+	@Test
+	public void cellCountsFollowChanges() {
+		int[][] cells = new int[ROWS][COLUMNS];
+		cells[0][0] = 1;
+		cells[6][9] = -1;
+		ChunkGrid grid = new ChunkGrid(cells, 4, 3);
+		assertTrue(grid.hasStaticCells(0));
+		assertFalse(grid.hasAnimatedCells(0));
+		assertTrue(grid.hasAnimatedCells(8));
+		assertFalse(grid.hasStaticCells(8));
+
+		// 2x2 cells on the corner of chunks 0, 1, 3 and 4
+		grid.setCells(3, 2, 2, 2, -2);
+		for (int index : new int[]{0, 1, 3, 4}) {
+			assertTrue(grid.hasAnimatedCells(index));
+		}
+		assertFalse(grid.hasAnimatedCells(2));
+		assertEquals(-2, cells[3][4]);
+
+		grid.setCells(3, 2, 2, 2, 0);
+		grid.setCells(0, 0, 1, 1, 0);
+		grid.setCells(9, 6, 1, 1, 5);
+		for (int index = 0; index < 9; index++) {
+			assertFalse(grid.hasAnimatedCells(index));
+			assertEquals(index == 8, grid.hasStaticCells(index));
+		}
+	}
+
+	@Test
+	public void dirtyAreaIsSplitByChunks() {
+		ChunkGrid grid = new ChunkGrid(new int[ROWS][COLUMNS], 4, 3);
+		grid.setCells(3, 2, 2, 2, 1);
+		int[] dirty = new int[4];
+		assertTrue(grid.takeDirty(0, dirty));
+		assertArrayEquals(new int[]{3, 2, 4, 3}, dirty);
+		assertTrue(grid.takeDirty(1, dirty));
+		assertArrayEquals(new int[]{0, 2, 1, 3}, dirty);
+		assertTrue(grid.takeDirty(3, dirty));
+		assertArrayEquals(new int[]{3, 0, 4, 1}, dirty);
+		assertTrue(grid.takeDirty(4, dirty));
+		assertArrayEquals(new int[]{0, 0, 1, 1}, dirty);
+		for (int index = 0; index < 9; index++) {
+			assertFalse(grid.takeDirty(index, dirty));
+		}
+	}
+
+	@Test
+	public void dirtyAreasAreJoined() {
+		ChunkGrid grid = new ChunkGrid(new int[ROWS][COLUMNS], 4, 3);
+		grid.setCells(1, 0, 1, 1, 1);
+		grid.setCells(2, 2, 1, 1, 1);
+		grid.setCells(0, 1, 0, 1, 1);
+		int[] dirty = new int[4];
+		assertTrue(grid.takeDirty(0, dirty));
+		assertArrayEquals(new int[]{1, 0, 3, 3}, dirty);
+
+		// a whole row of the layer crosses all chunks of the row
+		grid.setCells(0, 4, COLUMNS, 1, 1);
+		assertTrue(grid.takeDirty(3, dirty));
+		assertArrayEquals(new int[]{0, 1, 4, 2}, dirty);
+		assertTrue(grid.takeDirty(5, dirty));
+		assertArrayEquals(new int[]{0, 1, 2, 2}, dirty);
+		assertFalse(grid.takeDirty(2, dirty));
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.lcdui.game;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CollisionMaskTest {
+	private static final int INVERTED_AXES = 0x4;
+	private static final int X_FLIP = 0x2;
+	private static final int Y_FLIP = 0x1;
+	private static final int OPAQUE = 0xff000000;
+	private static final int TRANSLUCENT = 0xfe000000;
+
+	@Test
+	public void opaquePixelsOnly() {
+		int[] image1 = {OPAQUE, TRANSLUCENT, 0, OPAQUE};
+		int[] image2 = {TRANSLUCENT, OPAQUE, OPAQUE, 0};
+		CollisionMask mask1 = CollisionMask.create(image1, 2, 2, Sprite.TRANS_NONE);
+		CollisionMask mask2 = CollisionMask.create(image2, 2, 2, Sprite.TRANS_NONE);
+		assertFalse(CollisionMask.collides(mask1, 0, 0, mask2, 0, 0, 2, 2));
+
+		CollisionMask mirrored = CollisionMask.create(image2, 2, 2, Sprite.TRANS_MIRROR);
+		assertTrue(CollisionMask.collides(mask1, 0, 0, mirrored, 0, 0, 2, 2));
+		assertFalse(CollisionMask.collides(mask1, 0, 0, mirrored, 0, 0, 1, 1));
+	}
+
+	/** Compares masks with per pixel check of getRGB data on random images, transforms and areas */
+	@Test
+	public void matchesPixelCheck() {
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			// area size in painter space
+			int width = 1 + random.nextInt(i % 4 == 0 ? 150 : 20);
+			int height = 1 + random.nextInt(i % 4 == 1 ? 150 : 20);
+			Pixels image1 = Pixels.random(random, width, height);
+			Pixels image2 = Pixels.random(random, width, height);
+			int transform1 = random.nextInt(8);
+			int transform2 = random.nextInt(8);
+			int[] area1 = image1.randomArea(random, transform1, width, height);
+			int[] area2 = image2.randomArea(random, transform2, width, height);
+
+			boolean expected = doPixelCollision(area1[0], area1[1], area2[0], area2[1],
+					image1, transform1, image2, transform2, width, height);
+			boolean actual = CollisionMask.collides(
+					CollisionMask.create(image1.argb, image1.width, image1.height, transform1),
+					area1[0], area1[1],
+					CollisionMask.create(image2.argb, image2.width, image2.height, transform2),
+					area2[0], area2[1], width, height);
+			assertEquals("case " + i, expected, actual);
+		}
+	}
+
+	/**
+	 * Benchmark of pixel-level checks of 16x16 bullets against a 48x48 ship in all transforms,
+	 * with cached masks and with getRGB copies of both areas as Sprite did before.
+	 */
+	@Test
+	public void benchmark() {
+		Random random = new Random(7);
+		Pixels ship = Pixels.random(random, 48, 48);
+		Pixels bullet = Pixels.random(random, 16, 16);
+		CollisionMask[] shipMasks = new CollisionMask[8];
+		CollisionMask[] bulletMasks = new CollisionMask[8];
+		for (int transform = 0; transform < 8; transform++) {
+			shipMasks[transform] = CollisionMask.create(ship.argb, ship.width, ship.height, transform);
+			bulletMasks[transform] = CollisionMask.create(bullet.argb, bullet.width, bullet.height, transform);
+		}
+		int checks = 100000;
+		int[][] cases = new int[checks][];
+		for (int i = 0; i < checks; i++) {
+			int transform1 = random.nextInt(8);
+			int transform2 = random.nextInt(8);
+			int width = 1 + random.nextInt(16);
+			int height = 1 + random.nextInt(16);
+			int[] area1 = ship.randomArea(random, transform1, width, height);
+			int[] area2 = bullet.randomArea(random, transform2, width, height);
+			cases[i] = new int[]{area1[0], area1[1], transform1, area2[0], area2[1], transform2, width, height};
+		}
+		long maskTime = Long.MAX_VALUE;
+		long pixelTime = Long.MAX_VALUE;
+		int maskHits = 0;
+		int pixelHits = 0;
+		for (int run = 0; run < 3; run++) {
+			maskHits = 0;
+			long start = System.nanoTime();
+			for (int[] c : cases) {
+				if (CollisionMask.collides(shipMasks[c[2]], c[0], c[1], bulletMasks[c[5]], c[3], c[4], c[6], c[7])) {
+					maskHits++;
+				}
+			}
+			maskTime = Math.min(maskTime, System.nanoTime() - start);
+			pixelHits = 0;
+			start = System.nanoTime();
+			for (int[] c : cases) {
+				if (doPixelCollision(c[0], c[1], c[3], c[4], ship, c[2], bullet, c[5], c[6], c[7])) {
+					pixelHits++;
+				}
+			}
+			pixelTime = Math.min(pixelTime, System.nanoTime() - start);
+		}
+		System.out.printf("%d collision checks: masks %d ms, getRGB %d ms%n",
+				checks, maskTime / 1000000, pixelTime / 1000000);
+		assertEquals(pixelHits, maskHits);
+		assertTrue(maskTime < pixelTime);
+	}
+
+	/** Check of Sprite for mutable images */
+	private static boolean doPixelCollision(int image1XOffset, int image1YOffset,
+											int image2XOffset, int image2YOffset,
+											Pixels image1, int transform1,
+											Pixels image2, int transform2,
+											int width, int height) {
+		int numPixels = height * width;
+		int[] argbData1 = new int[numPixels];
+		int[] argbData2 = new int[numPixels];
+		int[] start = new int[2];
+		int[] xIncr = new int[2];
+		int[] yIncr = new int[2];
+		Pixels[] images = {image1, image2};
+		int[] transforms = {transform1, transform2};
+		int[][] offsets = {{image1XOffset, image1YOffset}, {image2XOffset, image2YOffset}};
+		int[][] argbData = {argbData1, argbData2};
+		for (int i = 0; i < 2; i++) {
+			int transform = transforms[i];
+			if ((transform & INVERTED_AXES) != 0) {
+				if ((transform & Y_FLIP) != 0) {
+					xIncr[i] = -height;
+					start[i] = numPixels - height;
+				} else {
+					xIncr[i] = height;
+					start[i] = 0;
+				}
+				if ((transform & X_FLIP) != 0) {
+					yIncr[i] = -1;
+					start[i] += height - 1;
+				} else {
+					yIncr[i] = 1;
+				}
+				images[i].getRGB(argbData[i], height, offsets[i][0], offsets[i][1], height, width);
+			} else {
+				if ((transform & Y_FLIP) != 0) {
+					start[i] = numPixels - width;
+					yIncr[i] = -width;
+				} else {
+					start[i] = 0;
+					yIncr[i] = width;
+				}
+				if ((transform & X_FLIP) != 0) {
+					xIncr[i] = -1;
+					start[i] += width - 1;
+				} else {
+					xIncr[i] = 1;
+				}
+				images[i].getRGB(argbData[i], width, offsets[i][0], offsets[i][1], width, height);
+			}
+		}
+		for (int row = 0, begin1 = start[0], begin2 = start[1]; row < height;
+			 row++, begin1 += yIncr[0], begin2 += yIncr[1]) {
+			for (int col = 0, x1 = begin1, x2 = begin2; col < width;
+				 col++, x1 += xIncr[0], x2 += xIncr[1]) {
+				if ((argbData1[x1] & OPAQUE) == OPAQUE && (argbData2[x2] & OPAQUE) == OPAQUE) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static class Pixels {
+		final int[] argb;
+		final int width;
+		final int height;
+
+		private Pixels(int width, int height) {
+			this.width = width;
+			this.height = height;
+			argb = new int[width * height];
+		}
+
+		/** Creates an image which fits an area of the size with any transform */
+		static Pixels random(Random random, int areaWidth, int areaHeight) {
+			int size = Math.max(areaWidth, areaHeight);
+			Pixels image = new Pixels(size + random.nextInt(10), size + random.nextInt(10));
+			// sparse images, so areas without collision are common too
+			int density = 1 + random.nextInt(40);
+			for (int i = 0; i < image.argb.length; i++) {
+				int pixel = random.nextInt(density) == 0 ? OPAQUE : random.nextInt(2) * TRANSLUCENT;
+				image.argb[i] = pixel | random.nextInt(0x1000000);
+			}
+			return image;
+		}
+
+		/** @return top-left corner of the area in the image for the size in painter space */
+		int[] randomArea(Random random, int transform, int areaWidth, int areaHeight) {
+			boolean inverted = (transform & INVERTED_AXES) != 0;
+			int w = inverted ? areaHeight : areaWidth;
+			int h = inverted ? areaWidth : areaHeight;
+			return new int[]{random.nextInt(width - w + 1), random.nextInt(height - h + 1)};
+		}
+
+		void getRGB(int[] rgbData, int scanlength, int x, int y, int w, int h) {
+			for (int row = 0; row < h; row++) {
+				System.arraycopy(argb, (y + row) * width + x, rgbData, row * scanlength, w);
+			}
+		}
+	}
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package javax.microedition.rms.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.microedition.rms.InvalidRecordIDException;
+import javax.microedition.rms.RecordComparator;
+import javax.microedition.rms.RecordEnumeration;
+import javax.microedition.rms.RecordFilter;
+import javax.microedition.rms.RecordStore;
+import javax.microedition.rms.RecordStoreException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordEnumerationImplTest {
+	/** Orders records by the first byte only */
+	private static final RecordComparator BY_FIRST_BYTE = (rec1, rec2) -> {
+		int diff = rec1[0] - rec2[0];
+		return diff < 0 ? RecordComparator.PRECEDES
+				: diff > 0 ? RecordComparator.FOLLOWS : RecordComparator.EQUIVALENT;
+	};
+
+	private MemoryRecordStoreManager manager;
+	private RecordStoreImpl store;
+
+	@Before
+	public void setUp() {
+		manager = new MemoryRecordStoreManager();
+		store = new RecordStoreImpl(manager, "test");
+		store.setOpen();
+	}
+
+	@Test
+	public void filterAndSort() throws RecordStoreException {
+		int d = add('d');
+		int b = add('b');
+		int a = add('a');
+		add('z');
+		int c = add('c');
+		RecordFilter filter = candidate -> candidate[0] != 'z';
+
+		RecordEnumeration enumeration = store.enumerateRecords(filter, BY_FIRST_BYTE, false);
+
+		assertEquals(4, enumeration.numRecords());
+		assertArrayEquals(new int[]{a, b, c, d}, nextIds(enumeration));
+		enumeration.reset();
+		assertArrayEquals(new byte[]{'a', (byte) a}, enumeration.nextRecord());
+		assertEquals(a, enumeration.previousRecordId());
+	}
+
+	@Test
+	public void sortIsStable() throws RecordStoreException {
+		int[] expected = new int[20];
+		int[] ids = new int[20];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = add((char) ('a' + i % 3));
+		}
+		int n = 0;
+		for (int key = 0; key < 3; key++) {
+			for (int i = key; i < ids.length; i += 3) {
+				expected[n++] = ids[i];
+			}
+		}
+
+		RecordEnumeration enumeration = store.enumerateRecords(null, BY_FIRST_BYTE, false);
+
+		assertArrayEquals(expected, nextIds(enumeration));
+	}
+
+	@Test
+	public void keepUpdated() throws RecordStoreException {
+		int b = add('b');
+		int d = add('d');
+		RecordEnumeration enumeration = store.enumerateRecords(null, BY_FIRST_BYTE, true);
+
+		int c = add('c');
+		int a = add('a');
+		assertArrayEquals(new int[]{a, b, c, d}, nextIds(enumeration));
+
+		store.setRecord(d, new byte[]{'0'}, 0, 1);
+		store.deleteRecord(b);
+		enumeration.reset();
+		assertArrayEquals(new int[]{d, a, c}, nextIds(enumeration));
+
+		enumeration.keepUpdated(false);
+		add('e');
+		enumeration.reset();
+		assertEquals(3, enumeration.numRecords());
+	}
+
+	@Test
+	public void recordsAreReadFromStore() throws RecordStoreException {
+		int a = add('a');
+		RecordEnumeration enumeration = store.enumerateRecords(null, null, false);
+
+		store.setRecord(a, new byte[]{'b'}, 0, 1);
+
+		assertArrayEquals(new byte[]{'b'}, enumeration.nextRecord());
+	}
+
+	@Test
+	public void bodiesAreLoadedOnlyWhenNeeded() throws RecordStoreException {
+		for (int id = 1; id <= 5; id++) {
+			manager.records.put(id, new byte[]{(byte) ('f' - id)});
+			store.readRecordId(id);
+		}
+
+		RecordEnumeration enumeration = store.enumerateRecords(null, null, false);
+		assertEquals(5, enumeration.numRecords());
+		assertEquals(0, manager.loads);
+
+		enumeration = store.enumerateRecords(null, BY_FIRST_BYTE, false);
+		assertEquals(5, manager.loads);
+		assertArrayEquals(new int[]{5, 4, 3, 2, 1}, nextIds(enumeration));
+		assertFalse(enumeration.hasNextElement());
+	}
+
+	@Test(expected = InvalidRecordIDException.class)
+	public void destroy() throws RecordStoreException {
+		add('a');
+		RecordEnumeration enumeration = store.enumerateRecords(null, null, true);
+		enumeration.destroy();
+
+		assertEquals(0, enumeration.numRecords());
+		enumeration.nextRecordId();
+	}
+
+	/**
+	 * Benchmark of a kept up-to-date enumeration with a filter and a comparator over 10000 records,
+	 * against rebuilding it after each change as a full update does.
+	 */
+	@Test
+	public void keepUpdatedBenchmark() throws RecordStoreException {
+		int[] updated = new int[1];
+		int[] rebuilt = new int[1];
+		long updatedTime = Long.MAX_VALUE;
+		long rebuiltTime = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			updatedTime = Math.min(updatedTime, changeRecords(true, updated));
+			rebuiltTime = Math.min(rebuiltTime, changeRecords(false, rebuilt));
+		}
+		System.out.printf("1000 changes of 10000 records: kept updated %d ms, rebuilt %d ms%n",
+				updatedTime / 1000000, rebuiltTime / 1000000);
+		assertEquals(rebuilt[0], updated[0]);
+		assertTrue(updatedTime < rebuiltTime);
+	}
+
+	/**
+	 * Makes random changes of a new store with 10000 records and an enumeration of it.
+	 *
+	 * @param hash receives a hash of ids of the enumeration after the changes
+	 * @return nanoseconds the changes and enumeration updates took
+	 */
+	private static long changeRecords(boolean keepUpdated, int[] hash) throws RecordStoreException {
+		RecordStoreImpl store = new RecordStoreImpl(new MemoryRecordStoreManager(), "benchmark");
+		store.setOpen();
+		Random random = new Random(1);
+		List<Integer> ids = new ArrayList<>();
+		byte[] data = new byte[1];
+		for (int i = 0; i < 10000; i++) {
+			data[0] = (byte) random.nextInt();
+			ids.add(store.addRecord(data, 0, 1));
+		}
+		RecordFilter filter = candidate -> (candidate[0] & 1) == 0;
+		RecordEnumeration enumeration = store.enumerateRecords(filter, BY_FIRST_BYTE, keepUpdated);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 1000; i++) {
+			data[0] = (byte) random.nextInt();
+			switch (i % 3) {
+				case 0:
+					ids.add(store.addRecord(data, 0, 1));
+					break;
+				case 1:
+					store.setRecord(ids.get(random.nextInt(ids.size())), data, 0, 1);
+					break;
+				default:
+					store.deleteRecord(ids.remove(random.nextInt(ids.size())));
+					break;
+			}
+			if (!keepUpdated) {
+				enumeration.rebuild();
+			}
+		}
+		long time = System.nanoTime() - start;
+		hash[0] = Arrays.hashCode(nextIds(enumeration));
+		return time;
+	}
+
+	/** Adds a record of the key and a sequence number */
+	private int add(char key) throws RecordStoreException {
+		byte[] data = {(byte) key, (byte) store.getNextRecordID()};
+		return store.addRecord(data, 0, data.length);
+	}
+
+	private static int[] nextIds(RecordEnumeration enumeration) throws InvalidRecordIDException {
+		int[] ids = new int[enumeration.numRecords()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = enumeration.nextRecordId();
+		}
+		assertFalse(enumeration.hasNextElement());
+		return ids;
+	}
+
+	/** Keeps written records in memory and counts loads */
+	private static class MemoryRecordStoreManager implements RecordStoreManager {
+		final Map<Integer, byte[]> records = new HashMap<>();
+		int loads;
+
+		@Override
+		public void closeRecordStore(RecordStoreImpl recordStoreImpl) {
+		}
+
+		@Override
+		public void deleteRecord(RecordStoreImpl recordStoreImpl, int recordId) {
+			records.remove(recordId);
+		}
+
+		@Override
+		public void deleteRecordStore(String recordStoreName) {
+		}
+
+		@Override
+		public String getName() {
+			return "Memory record store";
+		}
+
+		@Override
+		public int getSizeAvailable(RecordStoreImpl recordStoreImpl) {
+			return Integer.MAX_VALUE;
+		}
+
+		@Override
+		public String[] listRecordStores() {
+			return null;
+		}
+
+		@Override
+		public byte[] loadRecord(RecordStoreImpl recordStoreImpl, int recordId)
+				throws RecordStoreException {
+			byte[] data = records.get(recordId);
+			if (data == null) {
+				throw new InvalidRecordIDException();
+			}
+			loads++;
+			return data;
+		}
+
+		@Override
+		public int getRecordSize(RecordStoreImpl recordStoreImpl, int recordId)
+				throws RecordStoreException {
+			return loadRecord(recordStoreImpl, recordId).length;
+		}
+
+		@Override
+		public RecordStore openRecordStore(String recordStoreName, boolean createIfNecessary) {
+			return null;
+		}
+
+		@Override
+		public void saveRecord(RecordStoreImpl recordStoreImpl, int recordId)
+				throws RecordStoreException {
+			byte[] data = recordStoreImpl.getRecordData(recordId);
+			records.put(recordId, data);
+			recordStoreImpl.recordSaved(recordId, data);
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.file;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FileChannelStreamsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+	private byte[] data;
+
+	@Before
+	public void setUp() throws IOException {
+		data = new byte[50000];
+		new Random(1).nextBytes(data);
+		file = folder.newFile("data.bin");
+		Files.write(file.toPath(), data);
+	}
+
+	@Test
+	public void read() throws IOException {
+		readMixed(false);
+	}
+
+	@Test
+	public void readMapped() throws IOException {
+		readMixed(true);
+	}
+
+	@Test
+	public void skipAndReset() throws IOException {
+		skipAndReset(false);
+	}
+
+	@Test
+	public void skipAndResetMapped() throws IOException {
+		skipAndReset(true);
+	}
+
+	@Test
+	public void readAfterClose() throws IOException {
+		InputStream is = open(false);
+		is.close();
+		try {
+			is.read();
+			fail("read() of closed stream");
+		} catch (IOException ignored) {
+		}
+	}
+
+	@Test
+	public void truncateAfterUnmap() throws IOException {
+		FileChannelInputStream is = new FileChannelInputStream(new FileInputStream(file).getChannel(), true);
+		try {
+			byte[] buf = new byte[10];
+			assertEquals(buf.length, readFully(is, buf));
+			is.unmap();
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.setLength(100);
+			}
+
+			assertEquals(90, is.available());
+			buf = new byte[200];
+			assertEquals(90, readFully(is, buf));
+			assertArrayEquals(Arrays.copyOfRange(data, 10, 100), Arrays.copyOf(buf, 90));
+			assertEquals(-1, is.read());
+		} finally {
+			is.close();
+		}
+	}
+
+	@Test
+	public void write() throws IOException {
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		Random random = new Random(2);
+		try (FileChannelOutputStream os = new FileChannelOutputStream(
+				new FileOutputStream(file).getChannel())) {
+			for (int i = 0; i < 200; i++) {
+				byte[] chunk = new byte[chunkSize(random)];
+				random.nextBytes(chunk);
+				if (chunk.length == 1) {
+					os.write(chunk[0]);
+				} else {
+					os.write(chunk, 0, chunk.length);
+				}
+				expected.write(chunk, 0, chunk.length);
+				if (i % 50 == 0) {
+					os.flush();
+					assertEquals(expected.size(), file.length());
+				}
+			}
+		}
+		assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+	}
+
+	@Test
+	public void writeFromPosition() throws IOException {
+		byte[] tail = {1, 2, 3};
+		FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+		channel.position(data.length - 1);
+		try (FileChannelOutputStream os = new FileChannelOutputStream(channel)) {
+			os.write(tail);
+		}
+
+		byte[] expected = Arrays.copyOf(data, data.length + 2);
+		System.arraycopy(tail, 0, expected, data.length - 1, tail.length);
+		assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+	}
+
+	/** Reads the file with single bytes, small and large chunks */
+	private void readMixed(boolean mapped) throws IOException {
+		Random random = new Random(3);
+		byte[] buf = new byte[20000];
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		try (InputStream is = open(mapped)) {
+			while (true) {
+				int size = chunkSize(random);
+				if (size == 1) {
+					int b = is.read();
+					if (b == -1) {
+						break;
+					}
+					actual.write(b);
+				} else {
+					int read = is.read(buf, 1, size);
+					if (read == -1) {
+						break;
+					}
+					actual.write(buf, 1, read);
+				}
+				assertEquals(data.length - actual.size(), is.available());
+			}
+			assertEquals(-1, is.read(buf, 0, buf.length));
+		}
+		assertArrayEquals(data, actual.toByteArray());
+	}
+
+	private void skipAndReset(boolean mapped) throws IOException {
+		try (InputStream is = open(mapped)) {
+			assertEquals(data[0], (byte) is.read());
+			assertEquals(10000, is.skip(10000));
+			is.mark(0);
+			assertEquals(data[10001], (byte) is.read());
+
+			byte[] buf = new byte[30000];
+			assertEquals(buf.length, readFully(is, buf));
+			assertArrayEquals(Arrays.copyOfRange(data, 10002, 40002), buf);
+
+			is.reset();
+			assertEquals(data[10001], (byte) is.read());
+			assertEquals(data.length - 10002, is.skip(Long.MAX_VALUE));
+			assertEquals(0, is.skip(1));
+			assertEquals(-1, is.read());
+
+			is.reset();
+			assertEquals(data[10001], (byte) is.read());
+		}
+	}
+
+	private InputStream open(boolean mapped) throws IOException {
+		return new FileChannelInputStream(new FileInputStream(file).getChannel(), mapped);
+	}
+
+	/** 1 byte, less than the buffer or more than the buffer */
+	private static int chunkSize(Random random) {
+		switch (random.nextInt(3)) {
+			case 0:
+				return 1;
+			case 1:
+				return 2 + random.nextInt(100);
+			default:
+				return 8192 + random.nextInt(10000);
+		}
+	}
+
+	private static int readFully(InputStream is, byte[] buf) throws IOException {
+		int n = 0;
+		while (n < buf.length) {
+			int read = is.read(buf, n, buf.length - n);
+			if (read == -1) {
+				break;
+			}
+			n += read;
+		}
+		return n;
+	}
+}
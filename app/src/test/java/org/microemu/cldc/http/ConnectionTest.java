@@ -0,0 +1,326 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.CacheRequest;
+import java.net.CacheResponse;
+import java.net.InetAddress;
+import java.net.ResponseCache;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.microedition.io.HttpConnection;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ConnectionTest {
+	private static final String HOST = "127.0.0.1";
+	private static final String ETAG = "\"v1\"";
+
+	/** Request headers received by the server, names in lower case */
+	private final List<Map<String, String>> requests = new ArrayList<>();
+	private final AtomicInteger accepted = new AtomicInteger();
+	private final ExpiringCache cache = new ExpiringCache();
+	private ServerSocket server;
+	private volatile byte[] body;
+	private volatile String expires;
+
+	/** Starts an HTTP/1.1 server on the loopback interface which keeps connections alive */
+	@Before
+	public void setUp() throws IOException {
+		ResponseCache.setDefault(cache);
+		server = new ServerSocket(0, 50, InetAddress.getByName(HOST));
+		Thread thread = new Thread(() -> {
+			while (true) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					return;
+				}
+				accepted.incrementAndGet();
+				Thread handler = new Thread(() -> {
+					try (Socket s = socket) {
+						InputStream in = s.getInputStream();
+						OutputStream out = s.getOutputStream();
+						Map<String, String> request;
+						while ((request = readRequest(in)) != null) {
+							synchronized (requests) {
+								requests.add(request);
+							}
+							out.write(respond(request));
+							out.flush();
+						}
+					} catch (IOException ignored) {
+					}
+				});
+				handler.setDaemon(true);
+				handler.start();
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		ResponseCache.setDefault(null);
+		server.close();
+	}
+
+	/** After the connection is closed the body stays readable, the socket is released at its end */
+	@Test(timeout = 10000)
+	public void disconnectWhenBodyIsConsumed() throws Exception {
+		body = new byte[65536];
+		new Random(1).nextBytes(body);
+		HttpConnection connection = open("/consume");
+		assertEquals(HttpConnection.HTTP_OK, connection.getResponseCode());
+		InputStream in = connection.openInputStream();
+		connection.close();
+
+		assertArrayEquals(body, readFully(in));
+		assertEquals(-1, in.read());
+		assertEquals(0, in.available());
+		in.close();
+		assertArrayEquals(body, readBody(open("/consume")));
+		assertEquals(1, accepted.get());
+	}
+
+	/** A body closed before its end releases the socket too */
+	@Test(timeout = 10000)
+	public void disconnectWhenStreamIsClosed() throws Exception {
+		body = new byte[4096];
+		HttpConnection connection = open("/close");
+		InputStream in = connection.openInputStream();
+		connection.close();
+		assertEquals(0, in.read());
+
+		in.close();
+		assertArrayEquals(body, readBody(open("/close")));
+		assertEquals(1, accepted.get());
+	}
+
+	@Test(timeout = 10000)
+	public void freshResponseIsServedFromCache() throws Exception {
+		body = "fresh".getBytes(StandardCharsets.US_ASCII);
+		long expiration = System.currentTimeMillis() / 1000 * 1000 + 3600000;
+		expires = formatDate(expiration);
+		for (int i = 0; i < 2; i++) {
+			HttpConnection connection = open("/fresh");
+			assertEquals(HttpConnection.HTTP_OK, connection.getResponseCode());
+			assertEquals(expiration, connection.getExpiration());
+			InputStream in = connection.openInputStream();
+			// the MIDlet may read the body after close, the entry is stored at its end
+			connection.close();
+			assertArrayEquals(body, readFully(in));
+			in.close();
+		}
+		assertEquals(1, requests.size());
+		assertEquals(1, cache.hits);
+	}
+
+	/** An expired entry is not served, the MIDlet revalidates it by its ETag */
+	@Test(timeout = 10000)
+	public void staleResponseIsRevalidated() throws Exception {
+		body = "stale".getBytes(StandardCharsets.US_ASCII);
+		expires = formatDate(System.currentTimeMillis() - 3600000);
+		HttpConnection connection = open("/stale");
+		assertEquals(ETAG, connection.getHeaderField("ETag"));
+		assertArrayEquals(body, readBody(connection));
+
+		long expiration = System.currentTimeMillis() / 1000 * 1000 + 3600000;
+		expires = formatDate(expiration);
+		connection = open("/stale");
+		connection.setRequestProperty("If-None-Match", ETAG);
+		assertEquals(HttpConnection.HTTP_NOT_MODIFIED, connection.getResponseCode());
+		assertEquals(expiration, connection.getExpiration());
+		assertEquals(0, readBody(connection).length);
+		assertEquals(2, requests.size());
+		assertEquals(ETAG, requests.get(1).get("if-none-match"));
+		assertEquals(0, cache.hits);
+	}
+
+	private HttpConnection open(String path) throws IOException {
+		String url = "http://" + HOST + ":" + server.getLocalPort() + path;
+		return (HttpConnection) new Connection().openConnection(url, 0, false);
+	}
+
+	private byte[] respond(Map<String, String> request) {
+		StringBuilder head = new StringBuilder();
+		byte[] content = body;
+		if (ETAG.equals(request.get("if-none-match"))) {
+			head.append("HTTP/1.1 304 Not Modified\r\n");
+			content = new byte[0];
+		} else {
+			head.append("HTTP/1.1 200 OK\r\n");
+			head.append("Content-Length: ").append(content.length).append("\r\n");
+		}
+		head.append("ETag: ").append(ETAG).append("\r\n");
+		if (expires != null) {
+			head.append("Expires: ").append(expires).append("\r\n");
+		}
+		head.append("\r\n");
+		byte[] bytes = head.toString().getBytes(StandardCharsets.US_ASCII);
+		byte[] response = new byte[bytes.length + content.length];
+		System.arraycopy(bytes, 0, response, 0, bytes.length);
+		System.arraycopy(content, 0, response, bytes.length, content.length);
+		return response;
+	}
+
+	/** @return request headers or null at the end of the stream */
+	private static Map<String, String> readRequest(InputStream in) throws IOException {
+		Map<String, String> headers = new HashMap<>();
+		String line = readLine(in);
+		if (line == null) {
+			return null;
+		}
+		while ((line = readLine(in)) != null && !line.isEmpty()) {
+			int colon = line.indexOf(':');
+			headers.put(line.substring(0, colon).toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+		}
+		return headers;
+	}
+
+	private static String readLine(InputStream in) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		int c;
+		while ((c = in.read()) != '\n') {
+			if (c == -1) {
+				return null;
+			}
+			if (c != '\r') {
+				sb.append((char) c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static byte[] readBody(HttpConnection connection) throws IOException {
+		try (InputStream in = connection.openInputStream()) {
+			return readFully(in);
+		} finally {
+			connection.close();
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int read;
+		while ((read = in.read(buf)) != -1) {
+			data.write(buf, 0, read);
+		}
+		return data.toByteArray();
+	}
+
+	private static String formatDate(long time) {
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return format.format(new Date(time));
+	}
+
+	/** Stand-in for the platform cache, it serves entries until their Expires date */
+	private static class ExpiringCache extends ResponseCache {
+		private final Map<URI, Entry> entries = new HashMap<>();
+		int hits;
+
+		@Override
+		public synchronized CacheResponse get(URI uri, String method, Map<String, List<String>> headers) {
+			Entry entry = entries.get(uri);
+			if (entry == null || entry.expiration <= System.currentTimeMillis()) {
+				return null;
+			}
+			hits++;
+			return new CacheResponse() {
+				@Override
+				public Map<String, List<String>> getHeaders() {
+					return entry.headers;
+				}
+
+				@Override
+				public InputStream getBody() {
+					return new ByteArrayInputStream(entry.body);
+				}
+			};
+		}
+
+		@Override
+		public synchronized CacheRequest put(URI uri, URLConnection connection) {
+			Map<String, List<String>> headers = connection.getHeaderFields();
+			long expiration = connection.getExpiration();
+			return new CacheRequest() {
+				private volatile boolean aborted;
+				private final ByteArrayOutputStream body = new ByteArrayOutputStream() {
+					@Override
+					public void close() {
+						if (aborted) {
+							return;
+						}
+						synchronized (ExpiringCache.this) {
+							entries.put(uri, new Entry(headers, toByteArray(), expiration));
+						}
+					}
+				};
+
+				@Override
+				public OutputStream getBody() {
+					return body;
+				}
+
+				@Override
+				public void abort() {
+					aborted = true;
+				}
+			};
+		}
+	}
+
+	private static class Entry {
+		final Map<String, List<String>> headers;
+		final byte[] body;
+		final long expiration;
+
+		Entry(Map<String, List<String>> headers, byte[] body, long expiration) {
+			this.headers = headers;
+			this.body = body;
+			this.expiration = expiration;
+		}
+	}
+}
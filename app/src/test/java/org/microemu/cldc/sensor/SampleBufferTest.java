@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.sensor;
+
+import org.junit.Test;
+
+import javax.microedition.sensor.ChannelInfo;
+import javax.microedition.sensor.ChannelInfoImpl;
+import javax.microedition.sensor.Data;
+import javax.microedition.sensor.Unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SampleBufferTest {
+	private static final ChannelInfo[] CHANNELS = {
+			channel(ChannelInfo.TYPE_INT, "int", 10),
+			channel(ChannelInfo.TYPE_DOUBLE, "double", 1),
+			channel(ChannelInfo.TYPE_OBJECT, "object", 2),
+	};
+
+	@Test
+	public void batchBySize() {
+		SampleBuffer buffer = new SampleBuffer(CHANNELS, 3, 0);
+		assertFalse(buffer.add(new float[]{1.25f, 1.5f, 1}, 100));
+		assertFalse(buffer.add(new float[]{2.25f, 2.5f, 2}, 200));
+		assertTrue(buffer.add(new float[]{3.25f, 3.5f, 3}, 300));
+
+		Data[] data = buffer.drain();
+
+		assertEquals(CHANNELS.length, data.length);
+		for (int i = 0; i < data.length; i++) {
+			assertSame(CHANNELS[i], data[i].getChannelInfo());
+			assertEquals(100, data[i].getTimestamp(0));
+			assertEquals(300, data[i].getTimestamp(2));
+		}
+		assertArrayEquals(new int[]{12, 22, 32}, data[0].getIntValues());
+		assertArrayEquals(new double[]{1.5, 2.5, 3.5}, data[1].getDoubleValues(), 0);
+		assertArrayEquals(new Object[]{2f, 4f, 6f}, data[2].getObjectValues());
+	}
+
+	@Test
+	public void batchByPeriod() {
+		SampleBuffer buffer = new SampleBuffer(CHANNELS, 10, 100);
+		assertFalse(buffer.add(new float[]{1, 1, 1}, 1000));
+		assertFalse(buffer.add(new float[]{2, 2, 2}, 1099));
+		assertTrue(buffer.add(new float[]{3, 3, 3}, 1100));
+
+		Data[] data = buffer.drain();
+		assertArrayEquals(new int[]{10, 20, 30}, data[0].getIntValues());
+
+		// the period starts again from the first sample of the next batch
+		assertFalse(buffer.add(new float[]{4, 4, 4}, 1150));
+		assertTrue(buffer.add(new float[]{5, 5, 5}, 1250));
+		assertArrayEquals(new int[]{40, 50}, buffer.drain()[0].getIntValues());
+	}
+
+	@Test
+	public void batchesAlternate() {
+		SampleBuffer buffer = new SampleBuffer(CHANNELS, 2, 0);
+		Data[] first = fill(buffer, 1);
+		Data[] second = fill(buffer, 2);
+
+		// the previous batch stays intact while the next one is collected
+		assertNotSame(first[0], second[0]);
+		assertArrayEquals(new int[]{10, 10}, first[0].getIntValues());
+		assertArrayEquals(new int[]{20, 20}, second[0].getIntValues());
+
+		int[] values = first[0].getIntValues();
+		Data[] third = fill(buffer, 3);
+		assertSame(first, third);
+		assertSame(values, third[0].getIntValues());
+		assertArrayEquals(new int[]{30, 30}, values);
+		assertArrayEquals(new int[]{20, 20}, second[0].getIntValues());
+	}
+
+	@Test
+	public void smallerBatch() {
+		SampleBuffer buffer = new SampleBuffer(CHANNELS, 3, 50);
+		fill(buffer, 1);
+		fill(buffer, 2);
+
+		assertFalse(buffer.add(new float[]{3, 3, 3}, 0));
+		assertTrue(buffer.add(new float[]{4, 4, 4}, 50));
+		Data[] data = buffer.drain();
+		assertArrayEquals(new int[]{30, 40}, data[0].getIntValues());
+		assertArrayEquals(new double[]{3, 4}, data[1].getDoubleValues(), 0);
+		assertArrayEquals(new Object[]{6f, 8f}, data[2].getObjectValues());
+		assertEquals(50, data[2].getTimestamp(1));
+	}
+
+	/** Completes a batch of the same samples with the same timestamp */
+	private static Data[] fill(SampleBuffer buffer, float value) {
+		float[] sample = {value, value, value};
+		while (!buffer.add(sample, 0)) {
+		}
+		return buffer.drain();
+	}
+
+	private static ChannelInfo channel(int dataType, String name, int scale) {
+		return new ChannelInfoImpl(-1.0f, dataType, null, name, scale, Unit.getUnit("m"));
+	}
+}
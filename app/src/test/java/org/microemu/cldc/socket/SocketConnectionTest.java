@@ -0,0 +1,294 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.microemu.cldc.socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ru.playsoftware.j2meloader.config.ProfileModel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SocketConnectionTest {
+	private static final String HOST = "127.0.0.1";
+
+	private final AtomicInteger accepted = new AtomicInteger();
+	private ServerSocket server;
+
+	/** Starts an echo server on the loopback interface */
+	@Before
+	public void setUp() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getByName(HOST));
+		Thread thread = new Thread(() -> {
+			while (true) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (IOException e) {
+					return;
+				}
+				accepted.incrementAndGet();
+				Thread echo = new Thread(() -> {
+					try (Socket s = socket) {
+						InputStream in = s.getInputStream();
+						OutputStream out = s.getOutputStream();
+						byte[] buf = new byte[4096];
+						int read;
+						while ((read = in.read(buf)) != -1) {
+							out.write(buf, 0, read);
+						}
+					} catch (IOException ignored) {
+					}
+				});
+				echo.setDaemon(true);
+				echo.start();
+			}
+		});
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		setPoolEnabled(false);
+		server.close();
+	}
+
+	/** The MIDlet doesn't call flush(), buffered data must be sent anyway */
+	@Test(timeout = 10000)
+	public void echoWithoutFlush() throws IOException {
+		SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+		try {
+			OutputStream out = connection.openOutputStream();
+			InputStream in = connection.openInputStream();
+			out.write("ping".getBytes());
+			assertArrayEquals("ping".getBytes(), readFully(in, 4));
+			out.write('!');
+			assertEquals('!', in.read());
+		} finally {
+			connection.close();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void echoLargeData() throws Exception {
+		byte[] data = new byte[200000];
+		new Random(1).nextBytes(data);
+		SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+		try {
+			OutputStream out = connection.openOutputStream();
+			InputStream in = connection.openInputStream();
+			Thread writer = new Thread(() -> {
+				try {
+					Random random = new Random(2);
+					for (int off = 0; off < data.length; ) {
+						int len = Math.min(data.length - off, 1 + random.nextInt(20000));
+						if (len == 1) {
+							out.write(data[off]);
+						} else {
+							out.write(data, off, len);
+						}
+						off += len;
+					}
+					out.flush();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			writer.start();
+			assertArrayEquals(data, readFully(in, data.length));
+			writer.join();
+		} finally {
+			connection.close();
+		}
+	}
+
+	/** Closing must not wait for a read blocked on the socket */
+	@Test(timeout = 10000)
+	public void closeDuringRead() throws Exception {
+		SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+		InputStream in = connection.openInputStream();
+		connection.openOutputStream();
+		CountDownLatch done = new CountDownLatch(1);
+		Thread reader = new Thread(() -> {
+			try {
+				in.read();
+			} catch (IOException ignored) {
+			}
+			done.countDown();
+		});
+		reader.start();
+		Thread.sleep(200);
+
+		in.close();
+		connection.close();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+
+	/** A writer blocked on a peer that doesn't read must not delay sending on other connections */
+	@Test(timeout = 10000)
+	public void blockedWriterDoesNotDelayFlush() throws Exception {
+		try (ServerSocket sink = new ServerSocket()) {
+			sink.setReceiveBufferSize(4096);
+			sink.bind(new InetSocketAddress(HOST, 0));
+			SocketConnection blocked = new SocketConnection(HOST, sink.getLocalPort());
+			Socket peer = sink.accept();
+			try {
+				OutputStream blockedOut = blocked.openOutputStream();
+				byte[] data = new byte[16 * 1024 * 1024];
+				Thread writer = new Thread(() -> {
+					try {
+						// leaves a delayed flush pending, then fills the socket buffers
+						blockedOut.write(0);
+						blockedOut.write(data);
+					} catch (IOException ignored) {
+					}
+				});
+				writer.setDaemon(true);
+				writer.start();
+				Thread.sleep(200);
+
+				SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+				try {
+					OutputStream out = connection.openOutputStream();
+					InputStream in = connection.openInputStream();
+					out.write("ping".getBytes());
+					assertArrayEquals("ping".getBytes(), readFully(in, 4));
+				} finally {
+					connection.close();
+				}
+			} finally {
+				peer.close();
+				blocked.close();
+			}
+		}
+	}
+
+	/**
+	 * Loopback benchmark of a byte-oriented protocol: the MIDlet writes and reads single bytes.
+	 * Raw socket streams make a system call for each of them.
+	 */
+	@Test(timeout = 60000)
+	public void singleByteThroughput() throws Exception {
+		int length = 100000;
+		long raw = Long.MAX_VALUE;
+		long buffered = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			try (Socket socket = new Socket(HOST, server.getLocalPort())) {
+				raw = Math.min(raw, echoBytes(socket.getOutputStream(), socket.getInputStream(), length));
+			}
+			SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+			try {
+				buffered = Math.min(buffered, echoBytes(connection.openOutputStream(),
+						connection.openInputStream(), length));
+			} finally {
+				connection.close();
+			}
+		}
+		System.out.printf("Echo of %d single bytes: raw streams %d ms, buffered streams %d ms%n",
+				length, raw / 1000000, buffered / 1000000);
+		assertTrue(buffered < raw);
+	}
+
+	@Test(timeout = 10000)
+	public void pooledConnectionIsReused() throws IOException {
+		setPoolEnabled(true);
+		for (int i = 0; i < 3; i++) {
+			SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+			InputStream in = connection.openInputStream();
+			OutputStream out = connection.openOutputStream();
+			out.write(i);
+			out.flush();
+			assertEquals(i, in.read());
+			in.close();
+			out.close();
+			connection.close();
+		}
+		assertEquals(1, accepted.get());
+	}
+
+	@Test(timeout = 10000)
+	public void connectionWithOpenStreamIsNotPooled() throws IOException {
+		setPoolEnabled(true);
+		for (int i = 0; i < 2; i++) {
+			SocketConnection connection = new SocketConnection(HOST, server.getLocalPort());
+			InputStream in = connection.openInputStream();
+			OutputStream out = connection.openOutputStream();
+			out.write(i);
+			assertEquals(i, in.read());
+			out.close();
+			connection.close();
+		}
+		assertEquals(2, accepted.get());
+	}
+
+	/** @return nanoseconds to send the bytes one by one and read them back one by one */
+	private static long echoBytes(OutputStream out, InputStream in, int length) throws Exception {
+		long start = System.nanoTime();
+		Thread writer = new Thread(() -> {
+			try {
+				for (int i = 0; i < length; i++) {
+					out.write(i);
+				}
+				out.flush();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		});
+		writer.start();
+		for (int i = 0; i < length; i++) {
+			assertEquals(i & 0xFF, in.read());
+		}
+		writer.join();
+		return System.nanoTime() - start;
+	}
+
+	private static byte[] readFully(InputStream in, int length) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream(length);
+		byte[] buf = new byte[8192];
+		while (data.size() < length) {
+			int read = in.read(buf, 0, Math.min(buf.length, length - data.size()));
+			if (read == -1) {
+				break;
+			}
+			data.write(buf, 0, read);
+		}
+		return data.toByteArray();
+	}
+
+	private static void setPoolEnabled(boolean enabled) {
+		ProfileModel params = new ProfileModel();
+		params.socketPool = enabled;
+		SocketPool.applySettings(params);
+	}
+}
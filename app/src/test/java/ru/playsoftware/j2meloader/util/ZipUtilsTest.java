@@ -0,0 +1,193 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ru.playsoftware.j2meloader.util;
+
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.enums.CompressionMethod;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import ru.woesss.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ZipUtilsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void repackStoredAlignsResources() throws IOException {
+		Map<String, byte[]> entries = createEntries(20);
+		File src = writeJar(entries, "src.jar");
+		File dst = folder.newFile("res.jar");
+		ZipUtils.repackStored(src, dst);
+
+		ByteBuffer zip = ByteBuffer.wrap(Files.readAllBytes(dst.toPath()));
+		try (ZipFile zipFile = new ZipFile(dst)) {
+			assertEquals(entries.size(), zipFile.getFileHeaders().size());
+			for (FileHeader fh : zipFile.getFileHeaders()) {
+				byte[] expected = entries.get(fh.getFileName());
+				assertNotNull(fh.getFileName(), expected);
+				if (fh.getFileName().endsWith(".class")) {
+					assertEquals(CompressionMethod.DEFLATE, fh.getCompressionMethod());
+					assertArrayEquals(expected, readEntry(zipFile, fh));
+					continue;
+				}
+				assertEquals(CompressionMethod.STORE, fh.getCompressionMethod());
+				ByteBuffer data = ZipUtils.getStoredData(zip, fh);
+				assertNotNull(fh.getFileName(), data);
+				int alignment = expected.length >= 64 * 1024 ? 4096 : 4;
+				assertEquals(fh.getFileName(), 0, data.arrayOffset() % alignment);
+				assertArrayEquals(expected, toByteArray(data));
+			}
+		}
+	}
+
+	/**
+	 * Resource loading at MIDlet startup: opens the jar and reads every resource once,
+	 * inflating entries of the original jar or slicing the repacked one mapped into memory.
+	 * Best of 3 runs.
+	 */
+	@Test
+	public void benchmark() throws IOException {
+		Map<String, byte[]> entries = createEntries(400);
+		File src = writeJar(entries, "src.jar");
+		File dst = folder.newFile("res.jar");
+		ZipUtils.repackStored(src, dst);
+
+		long deflated = Long.MAX_VALUE;
+		long mapped = Long.MAX_VALUE;
+		for (int i = 0; i < 3; i++) {
+			long time = System.nanoTime();
+			int hash = readInflated(src);
+			deflated = Math.min(deflated, System.nanoTime() - time);
+
+			time = System.nanoTime();
+			assertEquals(hash, readMapped(dst));
+			mapped = Math.min(mapped, System.nanoTime() - time);
+		}
+		System.out.printf("read %d resources: deflated %d ms, stored and mapped %d ms, jar %d KB -> %d KB%n",
+				entries.size(), deflated / 1000000, mapped / 1000000,
+				src.length() >> 10, dst.length() >> 10);
+		assertTrue(mapped < deflated);
+	}
+
+	private static int readInflated(File jar) throws IOException {
+		int hash = 0;
+		try (ZipFile zipFile = new ZipFile(jar)) {
+			for (FileHeader fh : zipFile.getFileHeaders()) {
+				if (!fh.getFileName().endsWith(".class")) {
+					hash = hash * 31 + Arrays.hashCode(readEntry(zipFile, fh));
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static int readMapped(File jar) throws IOException {
+		int hash = 0;
+		try (ZipFile zipFile = new ZipFile(jar);
+			 RandomAccessFile raf = new RandomAccessFile(jar, "r");
+			 FileChannel channel = raf.getChannel()) {
+			ByteBuffer zip = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			for (FileHeader fh : zipFile.getFileHeaders()) {
+				if (!fh.getFileName().endsWith(".class")) {
+					hash = hash * 31 + Arrays.hashCode(toByteArray(ZipUtils.getStoredData(zip, fh)));
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static byte[] readEntry(ZipFile zipFile, FileHeader fh) throws IOException {
+		try (DataInputStream dis = new DataInputStream(zipFile.getInputStream(fh))) {
+			byte[] data = new byte[(int) fh.getUncompressedSize()];
+			dis.readFully(data);
+			return data;
+		}
+	}
+
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		byte[] data = new byte[buffer.remaining()];
+		buffer.get(data);
+		return data;
+	}
+
+	private File writeJar(Map<String, byte[]> entries, String name) throws IOException {
+		File jar = folder.newFile(name);
+		try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jar))) {
+			for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+				zos.putNextEntry(new ZipEntry(entry.getKey()));
+				zos.write(entry.getValue());
+			}
+		}
+		return jar;
+	}
+
+	/**
+	 * Entries of a typical MIDlet jar: classes, images (incompressible, a few large ones)
+	 * and text data of odd sizes
+	 */
+	private static Map<String, byte[]> createEntries(int count) {
+		Random random = new Random(1);
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			byte[] data;
+			String name;
+			switch (i % 4) {
+				case 0:
+					name = "c" + i + ".class";
+					data = new byte[1000 + random.nextInt(4000)];
+					break;
+				case 1:
+					name = "img/" + i + ".png";
+					data = new byte[i % 20 == 1 ? 100000 + random.nextInt(50000) : 500 + random.nextInt(20000)];
+					random.nextBytes(data);
+					break;
+				default:
+					name = "data/" + i + ".txt";
+					data = new byte[1 + random.nextInt(8000)];
+					for (int j = 0; j < data.length; j++) {
+						data[j] = (byte) ('a' + random.nextInt(4));
+					}
+					break;
+			}
+			entries.put(name, data);
+		}
+		return entries;
+	}
+}
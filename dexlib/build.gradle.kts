@@ -24,10 +24,17 @@ android {
         abortOnError = false
         targetSdk = rootProject.extra["targetSdk"] as Int
     }
+
+    testOptions.unitTests.all {
+        // AndroidProducer reads /assets/dexer/patches.bin from the class path, as from the apk
+        it.classpath += files("src/main")
+    }
 }
 
 dependencies {
     implementation(fileTree("dir" to "libs", "include" to listOf("*.jar")))
     api("net.lingala.zip4j:zip4j:2.11.5")
     implementation("org.ow2.asm:asm:9.6")
+
+    testImplementation("junit:junit:4.13.2")
 }
@@ -176,7 +176,7 @@ public class ClassPathOpener {
      * @param b {@code non-null;} second class name
      * @return {@code compareTo()}-style result
      */
-    private static int compareClassNames(String a, String b) {
+    public static int compareClassNames(String a, String b) {
         if (a == null) {
             return b == null ? 0 : -1;
         } else if (b == null) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.dx.command.dexer;
+
+import com.android.dx.cf.direct.ClassPathOpener;
+
+import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.model.LocalFileHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * In-memory front end of the dexer.
+ * <p>
+ * Converts class files supplied as bytes or as a jar stream and writes the dex file
+ * to a stream, without command line parsing and temporary files.
+ * Instances keep only options, so one instance may be used from several threads.
+ */
+public class Dexer {
+    private final boolean optimize;
+    private final int numThreads;
+
+    /**
+     * @param optimize   whether to optimize translated code, like the absence of {@code --no-optimize}
+     * @param numThreads number of translation threads
+     */
+    public Dexer(boolean optimize, int numThreads) {
+        this.optimize = optimize;
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    /**
+     * Converts all class files of the jar, other entries are ignored
+     *
+     * @param jar input stream of jar, not closed by this method
+     * @param out output stream for dex file, not closed by this method
+     */
+    public void dex(InputStream jar, OutputStream out) throws IOException {
+        List<Map.Entry<String, byte[]>> classes = new ArrayList<>();
+        ZipInputStream zis = new ZipInputStream(jar);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(40000);
+        byte[] buf = new byte[20000];
+        LocalFileHeader header;
+        while ((header = zis.getNextEntry()) != null) {
+            String name = header.getFileName();
+            if (header.isDirectory() || !name.toLowerCase(Locale.US).endsWith(".class")) {
+                continue;
+            }
+            baos.reset();
+            int read;
+            while ((read = zis.read(buf)) != -1) {
+                baos.write(buf, 0, read);
+            }
+            classes.add(new AbstractMap.SimpleImmutableEntry<>(name, baos.toByteArray()));
+        }
+        dex(classes, out);
+    }
+
+    /**
+     * Converts class files
+     *
+     * @param classes class file paths (e.g. {@code "a/b/C.class"}) with class file contents
+     * @param out     output stream for dex file, not closed by this method
+     */
+    public void dex(Map<String, byte[]> classes, OutputStream out) throws IOException {
+        dex(new ArrayList<>(classes.entrySet()), out);
+    }
+
+    private void dex(List<Map.Entry<String, byte[]>> classes, OutputStream out) throws IOException {
+        // same order as ClassPathOpener uses for jars
+        Collections.sort(classes, (a, b) -> ClassPathOpener.compareClassNames(a.getKey(), b.getKey()));
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        DxContext context = new DxContext(log, log);
+        Main.Arguments arguments = new Main.Arguments(context);
+        arguments.optimize = optimize;
+        arguments.numThreads = numThreads;
+
+        byte[] dex = new Main(context).runInMemory(arguments, classes);
+        context.err.flush();
+        if (dex == null) {
+            throw new IOException("Dexing failed: " + log);
+        }
+        out.write(dex);
+    }
+}
@@ -66,6 +66,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
@@ -287,6 +288,68 @@ public class Main {
      * @return whether processing was successful
      */
     private boolean processAllFiles() {
+        startProcessing();
+
+        String[] fileNames = args.fileNames;
+        Arrays.sort(fileNames);
+
+        try {
+            for (int i = 0; i < fileNames.length; i++) {
+                processOne(fileNames[i], path -> path.toLowerCase(Locale.US).endsWith(".class"));
+            }
+        } catch (StopProcessing ex) {
+            /*
+             * Ignore it and just let the error reporting do
+             * their things.
+             */
+        }
+
+        return finishProcessing();
+    }
+
+    /**
+     * Converts classes to a dex file without using the file system.
+     *
+     * @param arguments {@code non-null;} conversion options, input and
+     * output names are ignored
+     * @param classes {@code non-null;} class file names and contents,
+     * in the order of {@link ClassPathOpener#compareClassNames}
+     * @return {@code null-ok;} the dex file or {@code null} if there
+     * were errors
+     */
+    byte[] runInMemory(Arguments arguments, List<Map.Entry<String, byte[]>> classes) {
+        errors.set(0);
+        args = arguments;
+        args.jarOutput = false;
+        args.makeOptionsObjects();
+
+        startProcessing();
+        try {
+            FileBytesConsumer consumer = new FileBytesConsumer();
+            CRC32 crc = new CRC32();
+            for (Map.Entry<String, byte[]> entry : classes) {
+                byte[] bytes = entry.getValue();
+                crc.reset();
+                crc.update(bytes, 0, bytes.length);
+                try {
+                    processFileBytes(entry.getKey(), crc.getValue(), bytes);
+                } catch (Exception ex) {
+                    consumer.onException(ex);
+                }
+            }
+        } catch (StopProcessing ex) {
+            // reported by finishProcessing()
+        }
+        if (!finishProcessing() || outputDex.isEmpty()) {
+            return null;
+        }
+        return writeDex(outputDex);
+    }
+
+    /**
+     * Creates the output {@link DexFile} and the translation executors.
+     */
+    private void startProcessing() {
         createDexFile();
 
         if (args.jarOutput) {
@@ -294,8 +357,6 @@ public class Main {
         }
 
         anyFilesProcessed = false;
-        String[] fileNames = args.fileNames;
-        Arrays.sort(fileNames);
 
         // translate classes in parallel
         classTranslatorPool = new ThreadPoolExecutor(args.numThreads,
@@ -304,19 +365,14 @@ public class Main {
                new ThreadPoolExecutor.CallerRunsPolicy());
         // collect translated and write to dex in order
         classDefItemConsumer = Executors.newSingleThreadExecutor();
+    }
 
-
-        try {
-            for (int i = 0; i < fileNames.length; i++) {
-                processOne(fileNames[i], path -> path.toLowerCase(Locale.US).endsWith(".class"));
-            }
-        } catch (StopProcessing ex) {
-            /*
-             * Ignore it and just let the error reporting do
-             * their things.
-             */
-        }
-
+    /**
+     * Waits for all submitted classes to be added to the output dex.
+     *
+     * @return whether processing was successful
+     */
+    private boolean finishProcessing() {
         try {
             classTranslatorPool.shutdown();
             classTranslatorPool.awaitTermination(600L, TimeUnit.SECONDS);
@@ -462,25 +518,16 @@ public class Main {
             checkClassName(name);
         }
 
-        try {
-            // modify byte-code with ASM-java
-            bytes = AndroidProducer.instrument(bytes, name, crc);
-
-            new DirectClassFileConsumer(name, bytes, null).call(
-                    new ClassParserTask(name, bytes).call());
-        } catch (ParseException ex) {
-            // handled in FileBytesConsumer
-            throw ex;
-        } catch(IllegalArgumentException e) {
-            e.printStackTrace();
-        } catch(Exception ex) {
-            throw new RuntimeException("Exception parsing classes", ex);
-        }
+        // instrument, parse and translate on the pool, add to dex in input order
+        Future<ClassDefItem> cdif = classTranslatorPool.submit(
+                new ClassProcessorTask(name, crc, bytes));
+        Future<Boolean> res = classDefItemConsumer.submit(new ClassDefItemConsumer(
+                name, cdif));
+        addToDexFutures.add(res);
 
         return true;
     }
 
-
     private DirectClassFile parseClass(String name, byte[] bytes) {
 
         DirectClassFile cf = new DirectClassFile(bytes, name,
@@ -1305,90 +1352,35 @@ public class Main {
         }
     }
 
-    /** Callable helper class to parse class bytes. */
-    private class ClassParserTask implements Callable<DirectClassFile> {
-
-        String name;
-        byte[] bytes;
-
-        private ClassParserTask(String name, byte[] bytes) {
-            this.name = name;
-            this.bytes = bytes;
-        }
-
-        @Override
-        public DirectClassFile call() throws Exception {
-            DirectClassFile cf =  parseClass(name, bytes);
-
-            return cf;
-        }
-    }
-
     /**
-     * Callable helper class used to sequentially collect the results of
-     * the (optionally parallel) translation phase, in correct input file order.
-     * This class is also responsible for coordinating dex file rotation
-     * with the ClassDefItemConsumer class.
-     * We maintain invariant that the number of indices used in the current
-     * dex file plus the max number of indices required by classes passed to
-     * the translation phase and not yet added to the dex file, is less than
-     * or equal to the dex file limit.
-     * For each parsed file, we estimate the maximum number of indices it may
-     * require. If passing the file to the translation phase would invalidate
-     * the invariant, we wait, until the next class is added to the dex file,
-     * and then reevaluate the invariant. If there are no further classes in
-     * the translation phase, we rotate the dex file.
+     * Callable helper class to instrument, parse and translate one class
+     * on the translation pool.
      */
-    private class DirectClassFileConsumer implements Callable<Boolean> {
+    private class ClassProcessorTask implements Callable<ClassDefItem> {
 
         String name;
+        long crc;
         byte[] bytes;
-        Future<DirectClassFile> dcff;
 
-        private DirectClassFileConsumer(String name, byte[] bytes,
-                Future<DirectClassFile> dcff) {
+        private ClassProcessorTask(String name, long crc, byte[] bytes) {
             this.name = name;
+            this.crc = crc;
             this.bytes = bytes;
-            this.dcff = dcff;
-        }
-
-        @Override
-        public Boolean call() throws Exception {
-
-            DirectClassFile cf = dcff.get();
-            return call(cf);
-        }
-
-        private Boolean call(DirectClassFile cf) {
-
-            // Submit class to translation phase.
-            Future<ClassDefItem> cdif = classTranslatorPool.submit(
-                    new ClassTranslatorTask(bytes, cf));
-            Future<Boolean> res = classDefItemConsumer.submit(new ClassDefItemConsumer(
-                    name, cdif));
-            addToDexFutures.add(res);
-
-            return true;
-        }
-    }
-
-
-    /** Callable helper class to translate classes in parallel  */
-    private class ClassTranslatorTask implements Callable<ClassDefItem> {
-
-        byte[] bytes;
-        DirectClassFile classFile;
-
-        private ClassTranslatorTask(byte[] bytes,
-                                    DirectClassFile classFile) {
-            this.bytes = bytes;
-            this.classFile = classFile;
         }
 
         @Override
         public ClassDefItem call() {
-            ClassDefItem clazz = translateClass(bytes, classFile);
-            return clazz;
+            try {
+                // modify byte-code with ASM-java
+                byte[] instrumented = AndroidProducer.instrument(bytes, name, crc);
+                DirectClassFile cf = parseClass(name, instrumented);
+                return translateClass(instrumented, cf);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            } catch (Exception ex) {
+                new FileBytesConsumer().onException(ex);
+            }
+            return null;
         }
     }
 
@@ -1396,8 +1388,6 @@ public class Main {
      * Callable helper class used to collect the results of
      * the parallel translation phase, adding the translated classes to
      * the current dex file in correct (deterministic) file order.
-     * This class is also responsible for coordinating dex file rotation
-     * with the DirectClassFileConsumer class.
      */
     private class ClassDefItemConsumer implements Callable<Boolean> {
 
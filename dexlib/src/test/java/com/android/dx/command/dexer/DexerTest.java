@@ -0,0 +1,228 @@
+/*
+ * Copyright 2026 Yury Kharchenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.dx.command.dexer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DexerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void jarMatchesCommandLine() throws IOException {
+        File jar = writeJar(createClasses());
+
+        byte[] expected = dexWithCommandLine(jar);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (InputStream is = new FileInputStream(jar)) {
+            new Dexer(false, 1).dex(is, actual);
+        }
+        assertArrayEquals(expected, actual.toByteArray());
+    }
+
+    @Test
+    public void classesMatchCommandLine() throws IOException {
+        Map<String, byte[]> classes = createClasses();
+        File jar = writeJar(classes);
+
+        byte[] expected = dexWithCommandLine(jar);
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        new Dexer(false, 1).dex(classes, actual);
+        assertArrayEquals(expected, actual.toByteArray());
+    }
+
+    @Test
+    public void optimizedMatchesCommandLine() throws IOException {
+        Map<String, byte[]> classes = createClasses();
+        File jar = writeJar(classes);
+        File dex = new File(folder.getRoot(), "optimized.dex");
+        Main.main(new String[]{"--num-threads=4", "--output=" + dex, jar.getPath()});
+
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        new Dexer(true, 4).dex(classes, actual);
+        assertArrayEquals(Files.readAllBytes(dex.toPath()), actual.toByteArray());
+    }
+
+    /**
+     * Wall time and peak heap of dexing jars of different sizes on one thread and on all cores,
+     * best of 3 runs. The output must not depend on the number of threads.
+     */
+    @Test
+    public void benchmark() throws IOException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int size : new int[]{100, 1000, 4000}) {
+            File jar = writeJar(createCorpus(size), "corpus" + size + ".jar");
+            byte[] expected = null;
+            for (int numThreads : new int[]{1, threads}) {
+                long bestTime = Long.MAX_VALUE;
+                long bestPeak = Long.MAX_VALUE;
+                for (int i = 0; i < 3; i++) {
+                    System.gc();
+                    resetPeakUsage();
+                    long time = System.nanoTime();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    try (InputStream is = new FileInputStream(jar)) {
+                        new Dexer(false, numThreads).dex(is, out);
+                    }
+                    bestTime = Math.min(bestTime, System.nanoTime() - time);
+                    bestPeak = Math.min(bestPeak, getPeakUsage());
+                    if (expected == null) {
+                        expected = out.toByteArray();
+                    } else {
+                        assertArrayEquals(expected, out.toByteArray());
+                    }
+                }
+                System.out.printf("dex %d classes, %d threads: %d ms, peak heap %d MB%n",
+                        size, numThreads, bestTime / 1000000, bestPeak >> 20);
+            }
+        }
+    }
+
+    private static void resetPeakUsage() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /** @return sum of peak usage of heap pools since the last reset */
+    private static long getPeakUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private byte[] dexWithCommandLine(File jar) throws IOException {
+        File dex = new File(folder.getRoot(), "classes.dex");
+        Main.main(new String[]{"--no-optimize", "--output=" + dex, jar.getPath()});
+        byte[] bytes = Files.readAllBytes(dex.toPath());
+        assertTrue(bytes.length > 0);
+        return bytes;
+    }
+
+    private File writeJar(Map<String, byte[]> classes) throws IOException {
+        return writeJar(classes, "input.jar");
+    }
+
+    private File writeJar(Map<String, byte[]> classes, String name) throws IOException {
+        File jar = folder.newFile(name);
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jar))) {
+            zos.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zos.write("Manifest-Version: 1.0\n".getBytes());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue());
+            }
+        }
+        return jar;
+    }
+
+    /** Classes in an order different from the one the dexer sorts them in */
+    private static Map<String, byte[]> createClasses() {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        classes.put("b/Main.class", createClass("b/Main", "a/Base"));
+        classes.put("a/Base.class", createClass("a/Base", "java/lang/Object"));
+        classes.put("b/Main$1.class", createClass("b/Main$1", "java/lang/Object"));
+        classes.put("Root.class", createClass("Root", "b/Main"));
+        return classes;
+    }
+
+    /** Classes in packages of 50, each package is a chain of subclasses */
+    private static Map<String, byte[]> createCorpus(int size) {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = "p" + i / 50 + "/C" + i;
+            String superName = i % 50 == 0 ? "java/lang/Object" : "p" + i / 50 + "/C" + (i - 1);
+            classes.put(name + ".class", createClass(name, superName));
+        }
+        return classes;
+    }
+
+    private static byte[] createClass(String name, String superName) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_4, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, superName, null);
+        cw.visitField(Opcodes.ACC_PRIVATE, "value", "I", null, null).visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        mv.visitInsn(Opcodes.RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // int sum(int n) { int s = 0; for (int i = 0; i < n; i++) s += i * value; return s; }
+        mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "sum", "(I)I", null, null);
+        mv.visitCode();
+        Label check = new Label();
+        Label body = new Label();
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitVarInsn(Opcodes.ISTORE, 2);
+        mv.visitInsn(Opcodes.ICONST_0);
+        mv.visitVarInsn(Opcodes.ISTORE, 3);
+        mv.visitJumpInsn(Opcodes.GOTO, check);
+        mv.visitLabel(body);
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        mv.visitVarInsn(Opcodes.ILOAD, 3);
+        mv.visitVarInsn(Opcodes.ALOAD, 0);
+        mv.visitFieldInsn(Opcodes.GETFIELD, name, "value", "I");
+        mv.visitInsn(Opcodes.IMUL);
+        mv.visitInsn(Opcodes.IADD);
+        mv.visitVarInsn(Opcodes.ISTORE, 2);
+        mv.visitIincInsn(3, 1);
+        mv.visitLabel(check);
+        mv.visitVarInsn(Opcodes.ILOAD, 3);
+        mv.visitVarInsn(Opcodes.ILOAD, 1);
+        mv.visitJumpInsn(Opcodes.IF_ICMPLT, body);
+        mv.visitVarInsn(Opcodes.ILOAD, 2);
+        mv.visitInsn(Opcodes.IRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}